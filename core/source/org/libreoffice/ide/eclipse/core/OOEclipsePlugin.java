@@ -44,9 +44,12 @@ import org.eclipse.swt.graphics.RGB;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.libreoffice.ide.eclipse.core.editors.idl.Colors;
 import org.libreoffice.ide.eclipse.core.i18n.ImageManager;
+import org.libreoffice.ide.eclipse.core.internal.helpers.PackageContentCache;
 import org.libreoffice.ide.eclipse.core.model.OOoContainer;
 import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 import org.libreoffice.ide.eclipse.core.model.SDKContainer;
+import org.libreoffice.ide.eclipse.core.office.LiveOffice;
+import org.libreoffice.ide.eclipse.core.office.OfficePool;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -154,6 +157,9 @@ public class OOEclipsePlugin extends AbstractUIPlugin {
         OOoContainer.dispose();
         SDKContainer.dispose();
         ProjectsManager.dispose();
+        PackageContentCache.dispose();
+        LiveOffice.dispose();
+        OfficePool.dispose();
     }
 
     /**
@@ -46,8 +46,11 @@ import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.IStartup;
+import org.libreoffice.ide.eclipse.core.internal.model.UnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
 import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 
 /**
@@ -79,9 +82,14 @@ public class ResourceChangesHandler implements IStartup, IResourceChangeListener
                 IResource resource = addedi.getResource();
                 IProject project = resource.getProject();
 
-                if (ProjectsManager.getProject(project.getName()) == null && project.isOpen()) {
+                IUnoidlProject unoProject = ProjectsManager.getProject(project.getName());
+                if (unoProject == null && project.isOpen()) {
                     ProjectAdderJob job = new ProjectAdderJob(project);
                     job.schedule();
+                } else if (unoProject instanceof UnoidlProject
+                    && addedi.findMember(new Path(UnoidlProject.CONFIG_FILE)) != null) {
+                    // The configuration file has been changed: drop the configuration kept in memory
+                    ((UnoidlProject) unoProject).reloadConfig();
                 }
             }
         } else if (IResourceChangeEvent.PRE_DELETE == event.getType()) {
@@ -39,6 +39,7 @@ package org.libreoffice.ide.eclipse.core.builders;
 import java.io.File;
 import java.text.MessageFormat;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -92,7 +93,11 @@ public class TypesBuilder extends IncrementalProjectBuilder {
 
     public static final int NOT_STARTED_STATE = -1;
 
-    static int sBuildState = NOT_STARTED_STATE;
+    /**
+     * The build states of the projects being built, by project name. The types of several projects can be built
+     * at the same time, for example by the launch stages.
+     */
+    private static Map<String, Integer> sBuildStates = new ConcurrentHashMap<String, Integer>();
 
     private boolean mChangedIdl = false;
 
@@ -103,8 +108,13 @@ public class TypesBuilder extends IncrementalProjectBuilder {
     protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
 
         mChangedIdl = false;
+        IProject prj = getProject();
 
-        if (sBuildState < 0) {
+        // The builder holds the workspace rule: never wait for the project configuration here
+        if (ProjectsManager.getProject(prj.getName()) == null) {
+            // Not configured yet: build everything next time
+            forgetLastBuiltState();
+        } else if (getBuildState(prj) < 0) {
             IResourceDelta delta = getDelta(getProject());
             if (delta != null) {
                 addVisitor(delta);
@@ -112,11 +122,11 @@ public class TypesBuilder extends IncrementalProjectBuilder {
                 mChangedIdl = true;
             }
 
-            if (mChangedIdl && sBuildState < 0) {
+            if (mChangedIdl && getBuildState(prj) < 0) {
                 try {
-                    build(getProject(), monitor);
+                    build(prj, monitor);
                 } catch (Exception e) {
-                    sBuildState = NOT_STARTED_STATE;
+                    setBuildState(prj, NOT_STARTED_STATE);
                     CoreException thrown = new CoreException(
                         new Status(IStatus.ERROR, OOEclipsePlugin.OOECLIPSE_PLUGIN_ID,
                             Messages.getString("TypesBuilder.BuildError0"), e)); //$NON-NLS-1$
@@ -125,9 +135,9 @@ public class TypesBuilder extends IncrementalProjectBuilder {
                     }
                     throw thrown;
                 }
-                sBuildState = NOT_STARTED_STATE;
-            } else if (sBuildState == COMPLETED_STATE) {
-                sBuildState = NOT_STARTED_STATE;
+                setBuildState(prj, NOT_STARTED_STATE);
+            } else if (getBuildState(prj) == COMPLETED_STATE) {
+                setBuildState(prj, NOT_STARTED_STATE);
             }
         }
 
@@ -154,7 +164,7 @@ public class TypesBuilder extends IncrementalProjectBuilder {
                         if (res.getFileExtension().equals(IUnoidlProject.IDL_EXTENSION)) {
                             mChangedIdl = true;
                         } else if (res.equals(unoPrj.getTypesFile())) {
-                            sBuildState = COMPLETED_STATE;
+                            setBuildState(prj, COMPLETED_STATE);
                         }
                     }
                 }
@@ -182,16 +192,16 @@ public class TypesBuilder extends IncrementalProjectBuilder {
         removeAllRegistries(prj);
 
         if (unoprj.getSdk().useIdlWrite()) {
-            sBuildState = IDLW_STATE;
+            setBuildState(prj, IDLW_STATE);
             IdlwBuilder.build(unoprj, monitor);
         } else {
-            sBuildState = IDLC_STATE;
+            setBuildState(prj, IDLC_STATE);
             buildIdl(unoprj, monitor);
-            sBuildState = REGMERGE_STATE;
+            setBuildState(prj, REGMERGE_STATE);
             RegmergeBuilder.build(unoprj, monitor);
         }
 
-        sBuildState = GENERATE_TYPES_STATE;
+        setBuildState(prj, GENERATE_TYPES_STATE);
         File types = prj.getLocation().append(unoprj.getTypesPath()).toFile();
         File build = prj.getLocation().append(unoprj.getBuildPath()).toFile();
 
@@ -203,7 +213,36 @@ public class TypesBuilder extends IncrementalProjectBuilder {
         unoprj.checkManifestTypes();
 
         prj.refreshLocal(IResource.DEPTH_INFINITE, monitor);
-        sBuildState = NOT_STARTED_STATE;
+        setBuildState(prj, NOT_STARTED_STATE);
+    }
+
+    /**
+     * @param prj
+     *            the project
+     *
+     * @return the build state of the project, {@link #NOT_STARTED_STATE} if it isn't being built
+     */
+    private static int getBuildState(IProject prj) {
+        Integer state = sBuildStates.get(prj.getName());
+        int result = NOT_STARTED_STATE;
+        if (state != null) {
+            result = state.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * @param prj
+     *            the project
+     * @param state
+     *            the new build state of the project
+     */
+    private static void setBuildState(IProject prj, int state) {
+        if (state == NOT_STARTED_STATE) {
+            sBuildStates.remove(prj.getName());
+        } else {
+            sBuildStates.put(prj.getName(), Integer.valueOf(state));
+        }
     }
 
     /**
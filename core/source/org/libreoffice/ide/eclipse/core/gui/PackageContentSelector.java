@@ -183,6 +183,7 @@ public class PackageContentSelector extends Composite {
 
         // Create the package model
         pack = UnoidlProjectHelper.createMinimalUnoPackage(project, destFile);
+        pack.setParallelScan(true);
 
         if (library != null && library.exists()) {
             pack.addToClean(SystemHelper.getFile(library));
@@ -36,25 +36,77 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.core.gui;
 
-import org.eclipse.core.resources.IFolder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.viewers.ILabelDecorator;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
 import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
 import org.libreoffice.ide.eclipse.core.i18n.ImagesConstants;
+import org.libreoffice.ide.eclipse.core.internal.model.UnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.IProjectsListener;
 import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
 import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 
 /**
  * For Eclipse a decorator is a small class changing an element image and/or label. This decorator replaces the icons
  * for IDL files and registries.
+ *
+ * <p>
+ * The decorated images are shared by all the elements with the same base image and released when the decorator is
+ * disposed. The kind of each folder is computed once per project and forgotten when the project configuration
+ * changes.
+ * </p>
  */
 public class UnoidlDecorator extends LabelProvider implements ILabelDecorator {
 
+    private static final int OTHER_FOLDER = 0;
+
+    private static final int IDL_FOLDER = 1;
+
+    private static final int URD_FOLDER = 2;
+
+    /**
+     * The decorated images, only accessed while synchronized on the map.
+     */
+    private Map<OverlayKey, Image> mOverlays = new HashMap<OverlayKey, Image>();
+
+    /**
+     * The folders kinds mapped by project name.
+     */
+    private Map<String, ProjectFolders> mFolders = new ConcurrentHashMap<String, ProjectFolders>();
+
+    private IResourceChangeListener mResourceListener;
+
+    private IProjectsListener mProjectsListener;
+
+    /**
+     * Constructor.
+     */
+    public UnoidlDecorator() {
+        mResourceListener = new ConfigChangeListener();
+        mProjectsListener = new ProjectsListener();
+
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(mResourceListener,
+            IResourceChangeEvent.POST_CHANGE);
+        ProjectsManager.addListener(mProjectsListener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -63,22 +115,20 @@ public class UnoidlDecorator extends LabelProvider implements ILabelDecorator {
 
         Image newImage = null;
 
-        if (isIdlFolder(element)) {
-            newImage = new OverlayImageIcon(image, OOEclipsePlugin.getImage(ImagesConstants.IDL_MODIFIER),
-                OverlayImageIcon.TOP_LEFT).getImage();
+        int kind = getFolderKind(element);
+        if (IDL_FOLDER == kind) {
+            newImage = getOverlay(image, ImagesConstants.IDL_MODIFIER, OverlayImageIcon.TOP_LEFT);
         } else if (element instanceof IProject) {
             IProject project = (IProject) element;
             try {
                 if (project.hasNature(OOEclipsePlugin.UNO_NATURE_ID)) {
-                    newImage = new OverlayImageIcon(image, OOEclipsePlugin.getImage(ImagesConstants.PRJ_MODIFIER),
-                        OverlayImageIcon.BOTTOM_RIGHT).getImage();
+                    newImage = getOverlay(image, ImagesConstants.PRJ_MODIFIER, OverlayImageIcon.BOTTOM_RIGHT);
                 }
             } catch (CoreException e) {
                 // Nothing to do: no uno nature found
             }
-        } else if (isDbFolder(element)) {
-            newImage = new OverlayImageIcon(image, OOEclipsePlugin.getImage(ImagesConstants.DB_MODIFIER),
-                OverlayImageIcon.TOP_LEFT).getImage();
+        } else if (URD_FOLDER == kind) {
+            newImage = getOverlay(image, ImagesConstants.DB_MODIFIER, OverlayImageIcon.TOP_LEFT);
         }
 
         return newImage;
@@ -90,7 +140,7 @@ public class UnoidlDecorator extends LabelProvider implements ILabelDecorator {
     @Override
     public String decorateText(String text, Object element) {
 
-        if (isIdlFolder(element)) {
+        if (IDL_FOLDER == getFolderKind(element)) {
 
             text = text.replaceAll("\\.", "/"); //$NON-NLS-1$ //$NON-NLS-2$
         }
@@ -99,64 +149,274 @@ public class UnoidlDecorator extends LabelProvider implements ILabelDecorator {
     }
 
     /**
-     * Tests if the element is a folder contained in the project idl directory.
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose() {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(mResourceListener);
+        ProjectsManager.removeListener(mProjectsListener);
+        mFolders.clear();
+
+        synchronized (mOverlays) {
+            for (Image overlay : mOverlays.values()) {
+                overlay.dispose();
+            }
+            mOverlays.clear();
+        }
+
+        super.dispose();
+    }
+
+    /**
+     * Get the shared image of a base image decorated by an overlay, creating it if needed.
+     *
+     * @param image
+     *            the image to decorate
+     * @param overlayKey
+     *            the key of the overlay image in {@link ImagesConstants}
+     * @param location
+     *            the location of the overlay, one of the {@link OverlayImageIcon} constants
+     * @return the decorated image or <code>null</code> if there is no image to decorate
+     */
+    private Image getOverlay(Image image, String overlayKey, int location) {
+        Image overlay = null;
+
+        if (image != null && !image.isDisposed()) {
+            OverlayKey key = new OverlayKey(image, overlayKey, location);
+            synchronized (mOverlays) {
+                overlay = mOverlays.get(key);
+                if (overlay == null || overlay.isDisposed()) {
+                    pruneOverlays();
+                    overlay = new OverlayImageIcon(image, OOEclipsePlugin.getImage(overlayKey), location).getImage();
+                    mOverlays.put(key, overlay);
+                }
+            }
+        }
+
+        return overlay;
+    }
+
+    /**
+     * Release the decorated images whose base image has been disposed. Needs to be called while synchronized on
+     * {@link #mOverlays}.
+     */
+    private void pruneOverlays() {
+        Iterator<Map.Entry<OverlayKey, Image>> iter = mOverlays.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<OverlayKey, Image> entry = iter.next();
+            if (entry.getKey().mBase.isDisposed() || entry.getValue().isDisposed()) {
+                entry.getValue().dispose();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the kind of a folder in its UNO project.
      *
      * @param element
-     *            element to check
-     * @return <code>true</code> if the element is an IDL directory, <code>false</code> otherwise.
+     *            the element to check
+     * @return {@link #IDL_FOLDER} if the element is a folder contained in the project idl directory,
+     *         {@link #URD_FOLDER} if it is the urd folder of the project or one of its children, or
+     *         {@link #OTHER_FOLDER} otherwise.
      */
-    private boolean isIdlFolder(Object element) {
-        boolean result = false;
+    private int getFolderKind(Object element) {
+        int kind = OTHER_FOLDER;
 
-        if (element instanceof IResource) {
+        if (element instanceof IResource && IResource.FOLDER == ((IResource) element).getType()) {
             IResource resource = (IResource) element;
+            String name = resource.getProject().getName();
 
-            try {
-                if (IResource.FOLDER == resource.getType()) {
-                    IProject project = resource.getProject();
-                    IUnoidlProject unoPrj = ProjectsManager.getProject(project.getName());
+            ProjectFolders folders = mFolders.get(name);
+            if (folders == null) {
+                // Never wait for the project configuration in the UI: the project is decorated again once added
+                IUnoidlProject project = ProjectsManager.getProject(name);
+                if (project != null) {
+                    folders = new ProjectFolders(project);
+                    mFolders.put(name, folders);
+                }
+            }
+            if (folders != null) {
+                kind = folders.getKind(resource);
+            }
+        }
 
-                    IPath idlPath = unoPrj.getIdlPath();
-                    IPath resPath = resource.getProjectRelativePath();
+        return kind;
+    }
+
+    /**
+     * Forget the folders kinds of a project and ask for the project to be decorated again if it was decorated.
+     *
+     * @param name
+     *            the name of the project
+     */
+    private void invalidate(String name) {
+        if (mFolders.remove(name) != null) {
+            redecorate();
+        }
+    }
 
-                    result = resPath.toOSString().startsWith(idlPath.toOSString());
+    /**
+     * Ask for all the resources to be decorated again.
+     */
+    private void redecorate() {
+        Display display = Display.getDefault();
+        if (!display.isDisposed()) {
+            display.asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    fireLabelProviderChanged(new LabelProviderChangedEvent(UnoidlDecorator.this));
+                }
+            });
+        }
+    }
+
+    /**
+     * The folders paths of a project, read from the project configuration when it is created. The folders kinds are
+     * computed from them without keeping anything per folder: the removed folders don't leave any entry behind.
+     */
+    private static class ProjectFolders {
+
+        private String mIdlPath;
+
+        private String mUrdPath;
+
+        /**
+         * Constructor.
+         *
+         * @param project
+         *            the UNO project or <code>null</code> if the project isn't a UNO one
+         */
+        ProjectFolders(IUnoidlProject project) {
+            if (project != null) {
+                try {
+                    mIdlPath = project.getIdlPath().toOSString();
+                    mUrdPath = project.getUrdPath().toString();
+                } catch (Exception e) {
+                    mIdlPath = null;
+                    mUrdPath = null;
                 }
-            } catch (Exception e) {
-                result = false;
             }
         }
 
-        return result;
+        /**
+         * Get the kind of a folder of the project.
+         *
+         * @param folder
+         *            the folder to check
+         * @return the folder kind
+         */
+        int getKind(IResource folder) {
+            int kind = OTHER_FOLDER;
+            if (mIdlPath != null && folder.getProjectRelativePath().toOSString().startsWith(mIdlPath)) {
+                kind = IDL_FOLDER;
+            } else if (mUrdPath != null && folder.getProjectRelativePath().toString().startsWith(mUrdPath)) {
+                kind = URD_FOLDER;
+            }
+            return kind;
+        }
     }
 
     /**
-     * Tests if the elements is the urd folder of a unoidl project or one of its children.
-     *
-     * @param element
-     *            the element to test
-     * @return <code>true</code> if the element is the urd folder of a unoidl project or one of its children. Otherwise
-     *         of if the element is a urd child but not a folder, <code>false</code> is returned
+     * The key of a decorated image.
      */
-    private boolean isDbFolder(Object element) {
-        boolean result = false;
+    private static class OverlayKey {
 
-        if (element instanceof IFolder) {
+        private Image mBase;
 
-            try {
-                IFolder folder = (IFolder) element;
+        private String mOverlay;
+
+        private int mLocation;
 
-                IUnoidlProject project = ProjectsManager.getProject(folder.getProject().getName());
+        /**
+         * Constructor.
+         *
+         * @param base
+         *            the decorated image
+         * @param overlay
+         *            the key of the overlay image
+         * @param location
+         *            the location of the overlay
+         */
+        OverlayKey(Image base, String overlay, int location) {
+            mBase = base;
+            mOverlay = overlay;
+            mLocation = location;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            boolean equals = false;
+            if (obj instanceof OverlayKey) {
+                OverlayKey other = (OverlayKey) obj;
+                equals = mBase == other.mBase && mOverlay.equals(other.mOverlay) && mLocation == other.mLocation;
+            }
+            return equals;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int hash = System.identityHashCode(mBase);
+            hash = prime * hash + mOverlay.hashCode();
+            return prime * hash + mLocation;
+        }
+    }
 
-                if (folder.getProjectRelativePath().toString().startsWith(project.getUrdPath().toString())) {
+    /**
+     * Resource change listener forgetting the folders kinds of the projects whose configuration changed.
+     */
+    private class ConfigChangeListener implements IResourceChangeListener {
 
-                    result = true;
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void resourceChanged(IResourceChangeEvent event) {
+            List<String> invalid = new ArrayList<String>();
+            for (IResourceDelta prjDelta : event.getDelta().getAffectedChildren()) {
+                String name = prjDelta.getResource().getName();
+                if (mFolders.containsKey(name) && (prjDelta.getKind() != IResourceDelta.CHANGED
+                    || prjDelta.findMember(new Path(UnoidlProject.CONFIG_FILE)) != null)) {
+                    invalid.add(name);
                 }
-            } catch (Exception e) {
-                result = false;
             }
 
+            // The ResourceChangesHandler, registered at startup, has already dropped the outdated configuration
+            for (String name : invalid) {
+                invalidate(name);
+            }
         }
+    }
 
-        return result;
+    /**
+     * Listener forgetting the folders kinds of the projects added to or removed from the projects manager.
+     */
+    private class ProjectsListener implements IProjectsListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void projectAdded(IUnoidlProject project) {
+            // The projects aren't remembered until they are configured: they may have been painted undecorated
+            mFolders.remove(project.getName());
+            redecorate();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void projectRemoved(IUnoidlProject project) {
+            invalidate(project.getName());
+        }
     }
 }
@@ -0,0 +1,319 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.internal.helpers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.internal.model.UnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.utils.SystemHelper;
+import org.libreoffice.plugin.core.model.UnoPackage;
+
+/**
+ * Cache of the resources contained in the minimal UNO package of each project.
+ *
+ * <p>
+ * Computing the minimal package content resolves the whole project class path: the result is kept until a resource
+ * delta may change it. Content changes of existing files don't invalidate the cache, but any file addition or removal
+ * outside the derived resources does, as well as any change to the <code>.classpath</code> or
+ * <code>.unoproject</code> files. The changes to the <code>.classpath</code> or <code>Build.jardesc</code> files of
+ * the referenced projects also invalidate the cache as they are used to compute the project libraries.
+ * </p>
+ *
+ * <p>
+ * The content of a project is not cached if it couldn't be computed.
+ * </p>
+ */
+public class PackageContentCache {
+
+    private static final String CLASSPATH_FILE = ".classpath"; //$NON-NLS-1$
+
+    private static final String JARDESC_FILE = "Build.jardesc"; //$NON-NLS-1$
+
+    private static final int EVENTS_MASK = IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE
+        | IResourceChangeEvent.PRE_DELETE;
+
+    private static Map<String, Set<IResource>> sContents = new ConcurrentHashMap<String, Set<IResource>>();
+
+    private static AtomicLong sGeneration = new AtomicLong();
+
+    private static IResourceChangeListener sListener;
+
+    /**
+     * Get the resources contained in the minimal UNO package of a project.
+     *
+     * @param prj
+     *            the UNO project
+     * @return the unmodifiable set of the resources
+     */
+    public static Set<IResource> getContainedResources(IUnoidlProject prj) {
+        Set<IResource> contents = sContents.get(prj.getName());
+        if (contents == null) {
+            registerListener();
+
+            // Compute the content and only keep it if no delta invalidated the cache meanwhile
+            long generation = sGeneration.get();
+            contents = computeContent(prj);
+            if (contents == null) {
+                // Don't keep a failure: the next call will try again
+                contents = Collections.emptySet();
+            } else if (generation == sGeneration.get()) {
+                sContents.put(prj.getName(), contents);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Checks if the resource is contained in the minimal UNO package of its project.
+     *
+     * @param prj
+     *            the UNO project
+     * @param res
+     *            the resource to look for
+     * @return <code>true</code> if the resource is contained in the package
+     */
+    public static boolean contains(IUnoidlProject prj, IResource res) {
+        return getContainedResources(prj).contains(res);
+    }
+
+    /**
+     * Forget the cached content of a project.
+     *
+     * @param name
+     *            the name of the project
+     */
+    public static void invalidate(String name) {
+        sGeneration.incrementAndGet();
+        sContents.remove(name);
+    }
+
+    /**
+     * Release the cached data and stop listening to the resource changes. There is no need to call this method in any
+     * other place than the plugin stop method.
+     */
+    public static synchronized void dispose() {
+        if (sListener != null) {
+            ResourcesPlugin.getWorkspace().removeResourceChangeListener(sListener);
+            sListener = null;
+        }
+        sGeneration.incrementAndGet();
+        sContents.clear();
+    }
+
+    /**
+     * Starts listening to the resource changes if not already done.
+     */
+    private static synchronized void registerListener() {
+        if (sListener == null) {
+            sListener = new ContentChangeListener();
+            ResourcesPlugin.getWorkspace().addResourceChangeListener(sListener, EVENTS_MASK);
+        }
+    }
+
+    /**
+     * Builds a minimal UNO package to get its content.
+     *
+     * @param prj
+     *            the UNO project
+     * @return the unmodifiable set of the resources or <code>null</code> if it couldn't be computed
+     */
+    private static Set<IResource> computeContent(IUnoidlProject prj) {
+        Set<IResource> contents = null;
+
+        IProject project = prj.getProject();
+        File outputDir = new File(System.getProperty("user.home")); //$NON-NLS-1$
+        File dest = new File(outputDir, prj.getName() + ".zip"); //$NON-NLS-1$
+        try {
+            UnoPackage unoPackage = UnoidlProjectHelper.createMinimalUnoPackage(prj, dest);
+            Set<IResource> resources = new LinkedHashSet<IResource>();
+
+            File prjFile = SystemHelper.getFile(project);
+            for (File file : unoPackage.getContainedFiles()) {
+                String relative = UnoPackage.getPathRelativeToBase(file, prjFile);
+                IResource res = project.findMember(relative);
+                if (res != null) {
+                    resources.add(res);
+                }
+            }
+
+            unoPackage.dispose();
+            contents = Collections.unmodifiableSet(resources);
+        } catch (Exception e) {
+            PluginLogger.debug("Can't compute the package content of project " + prj.getName(), e); //$NON-NLS-1$
+        }
+        return contents;
+    }
+
+    /**
+     * Resource change listener invalidating the projects whose package content may have changed.
+     */
+    private static class ContentChangeListener implements IResourceChangeListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void resourceChanged(IResourceChangeEvent event) {
+            if (IResourceChangeEvent.POST_CHANGE == event.getType()) {
+                List<String> invalid = new ArrayList<String>();
+                Set<IProject> changedLibs = new HashSet<IProject>();
+                for (IResourceDelta prjDelta : event.getDelta().getAffectedChildren()) {
+                    String name = prjDelta.getResource().getName();
+                    if (isLibraryDescriptorChanged(prjDelta)) {
+                        changedLibs.add(prjDelta.getResource().getProject());
+                    }
+                    if (sContents.containsKey(name) && isContentChanged(prjDelta)) {
+                        invalid.add(name);
+                    }
+                }
+
+                // The projects using the changed projects as libraries need to be computed again
+                if (!changedLibs.isEmpty()) {
+                    for (String name : sContents.keySet()) {
+                        if (!invalid.contains(name) && isReferencing(name, changedLibs)) {
+                            invalid.add(name);
+                        }
+                    }
+                }
+
+                for (String name : invalid) {
+                    invalidate(name);
+                }
+            } else if (event.getResource() != null) {
+                // Project about to be closed or deleted
+                invalidate(event.getResource().getName());
+            }
+        }
+
+        /**
+         * Checks whether a project delta may change the content of its package.
+         *
+         * @param prjDelta
+         *            the delta of the project
+         * @return <code>true</code> if the package content needs to be computed again
+         */
+        private boolean isContentChanged(IResourceDelta prjDelta) {
+            final boolean[] changed = new boolean[] { prjDelta.getKind() != IResourceDelta.CHANGED };
+            try {
+                prjDelta.accept(new IResourceDeltaVisitor() {
+
+                    @Override
+                    public boolean visit(IResourceDelta delta) throws CoreException {
+                        IResource res = delta.getResource();
+                        int kind = delta.getKind();
+                        if (isConfigFile(res)) {
+                            changed[0] = true;
+                        } else if (res.getType() == IResource.FILE && !res.isDerived()
+                            && (kind == IResourceDelta.ADDED || kind == IResourceDelta.REMOVED)) {
+                            changed[0] = true;
+                        }
+
+                        // Don't visit the remaining resources once we know, nor the derived ones
+                        return !changed[0] && !res.isDerived();
+                    }
+                });
+            } catch (CoreException e) {
+                changed[0] = true;
+            }
+            return changed[0];
+        }
+
+        /**
+         * Checks whether a project delta changes the files used to compute the project libraries.
+         *
+         * @param prjDelta
+         *            the delta of the project
+         * @return <code>true</code> if the <code>.classpath</code> or <code>Build.jardesc</code> file changed
+         */
+        private boolean isLibraryDescriptorChanged(IResourceDelta prjDelta) {
+            return prjDelta.getKind() != IResourceDelta.CHANGED
+                || prjDelta.findMember(new Path(CLASSPATH_FILE)) != null
+                || prjDelta.findMember(new Path(JARDESC_FILE)) != null;
+        }
+
+        /**
+         * Checks whether a project references one of the given projects.
+         *
+         * @param name
+         *            the name of the project
+         * @param projects
+         *            the referenced projects to look for
+         * @return <code>true</code> if the project references one of the projects or if it can't be known
+         */
+        private boolean isReferencing(String name, Set<IProject> projects) {
+            boolean referencing = false;
+            try {
+                IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+                for (IProject referenced : project.getReferencedProjects()) {
+                    referencing |= projects.contains(referenced);
+                }
+            } catch (CoreException e) {
+                referencing = true;
+            }
+            return referencing;
+        }
+
+        private boolean isConfigFile(IResource res) {
+            boolean config = false;
+            if (res.getType() == IResource.FILE && res.getParent().getType() == IResource.PROJECT) {
+                String name = res.getName();
+                config = CLASSPATH_FILE.equals(name) || UnoidlProject.CONFIG_FILE.equals(name);
+            }
+            return config;
+        }
+    }
+}
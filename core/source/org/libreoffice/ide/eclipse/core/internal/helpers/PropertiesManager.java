@@ -45,11 +45,18 @@ import java.util.Enumeration;
 import java.util.Properties;
 import java.util.Vector;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.internal.model.AbstractOOo;
 import org.libreoffice.ide.eclipse.core.internal.model.OOo;
 import org.libreoffice.ide.eclipse.core.internal.model.SDK;
 import org.libreoffice.ide.eclipse.core.internal.model.URE;
+import org.libreoffice.ide.eclipse.core.model.OOoContainer;
+import org.libreoffice.ide.eclipse.core.model.SDKContainer;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
 import org.libreoffice.ide.eclipse.core.model.config.ISdk;
 import org.libreoffice.ide.eclipse.core.model.config.InvalidConfigException;
@@ -74,6 +81,15 @@ public class PropertiesManager {
 
     private static final String OOONAME_PREFERENCE_KEY = "oooname"; //$NON-NLS-1$
 
+    /**
+     * OOo type preference key, used to restore the instances without checking them first.
+     */
+    private static final String OOOTYPE_PREFERENCE_KEY = "oootype"; //$NON-NLS-1$
+
+    private static final String OOO_TYPE = "ooo"; //$NON-NLS-1$
+
+    private static final String URE_TYPE = "ure"; //$NON-NLS-1$
+
     /**
      * Loads the SDK properties.
      *
@@ -101,7 +117,10 @@ public class PropertiesManager {
                 found = !(null == path);
                 i++;
 
-                if (found) {
+                if (found && name != null) {
+                    // Will be checked later by validateInBackground()
+                    sdks.add(SDK.restore(path, name));
+                } else if (found) {
                     try {
                         SDK sdk = new SDK(path, name);
                         sdks.add(sdk);
@@ -198,16 +217,25 @@ public class PropertiesManager {
 
             int i = 0;
             boolean found = false;
+            boolean untyped = false;
             Vector<IOOo> ooos = new Vector<IOOo>();
 
             do {
                 String path = ooosProperties.getProperty(OOOPATH_PREFERENCE_KEY + i);
                 String name = ooosProperties.getProperty(OOONAME_PREFERENCE_KEY + i);
+                String type = ooosProperties.getProperty(OOOTYPE_PREFERENCE_KEY + i);
 
                 found = !(null == path);
                 i++;
 
-                if (found) {
+                // The instances with a known type will be checked later by validateInBackground()
+                if (found && URE_TYPE.equals(type)) {
+                    ooos.add(URE.restore(path, name));
+                } else if (found && OOO_TYPE.equals(type)) {
+                    ooos.add(OOo.restore(path, name));
+                } else if (found) {
+                    // Saved by an older version: checked now to find its type
+                    untyped = true;
                     try {
                         OOo ooo = new OOo(path, name);
                         ooos.add(ooo);
@@ -227,6 +255,11 @@ public class PropertiesManager {
             // Clean the vector
             ooos.clear();
 
+            // Save the types found for the old entries: they won't be checked at each start
+            if (untyped) {
+                saveOOos(result);
+            }
+
         } catch (IOException e) {
             PluginLogger.error(Messages.getString("PropertiesManager.UnreadableFileError") + //$NON-NLS-1$
                 OOEclipsePlugin.OOO_CONFIG, e);
@@ -276,7 +309,8 @@ public class PropertiesManager {
             while (keys.hasMoreElements()) {
                 String key = (String) keys.nextElement();
 
-                if (key.startsWith(OOOPATH_PREFERENCE_KEY) || key.startsWith(OOONAME_PREFERENCE_KEY)) {
+                if (key.startsWith(OOOPATH_PREFERENCE_KEY) || key.startsWith(OOONAME_PREFERENCE_KEY)
+                    || key.startsWith(OOOTYPE_PREFERENCE_KEY)) {
                     ooosProperties.remove(key);
                 }
             }
@@ -286,6 +320,11 @@ public class PropertiesManager {
                 IOOo oooi = ooos[i];
                 ooosProperties.put(OOOPATH_PREFERENCE_KEY + i, oooi.getHome());
                 ooosProperties.put(OOONAME_PREFERENCE_KEY + i, oooi.getName());
+                if (oooi instanceof URE) {
+                    ooosProperties.put(OOOTYPE_PREFERENCE_KEY + i, URE_TYPE);
+                } else if (oooi instanceof OOo) {
+                    ooosProperties.put(OOOTYPE_PREFERENCE_KEY + i, OOO_TYPE);
+                }
             }
 
             String ooos_config_url = OOEclipsePlugin.getDefault().getStateLocation().toString();
@@ -308,6 +347,23 @@ public class PropertiesManager {
         }
     }
 
+    /**
+     * Checks the loaded OOo, URE and SDK instances in a background job.
+     *
+     * <p>
+     * The instances are loaded without checking their installation to avoid slowing down the workbench start. The
+     * invalid ones are removed from their container once checked.
+     * </p>
+     *
+     * @param elements
+     *            the OOo, URE or SDK instances to check
+     */
+    public static void validateInBackground(Object[] elements) {
+        if (elements != null && elements.length > 0) {
+            new ValidationJob(elements).schedule();
+        }
+    }
+
     /**
      * Loads the OOo and SDK properties from the {@link OOEclipsePlugin#OOO_CONFIG} file.
      *
@@ -337,4 +393,59 @@ public class PropertiesManager {
 
         return ooosProperties;
     }
+
+    /**
+     * Job checking the installation of the restored OOo, URE and SDK instances.
+     */
+    private static class ValidationJob extends Job {
+
+        private Object[] mElements;
+
+        /**
+         * Constructor.
+         *
+         * @param elements
+         *            the instances to check
+         */
+        public ValidationJob(Object[] elements) {
+            super(Messages.getString("PropertiesManager.ValidationJob")); //$NON-NLS-1$
+            mElements = elements;
+            setSystem(true);
+            setPriority(Job.DECORATE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            for (Object element : mElements) {
+                try {
+                    if (element instanceof AbstractOOo) {
+                        ((AbstractOOo) element).validate();
+                    } else if (element instanceof SDK) {
+                        ((SDK) element).validate();
+                    }
+                } catch (InvalidConfigException e) {
+                    PluginLogger.error(e.getLocalizedMessage(), e);
+                    remove(element);
+                }
+            }
+            return Status.OK_STATUS;
+        }
+
+        /**
+         * Removes an invalid instance from its container.
+         *
+         * @param element
+         *            the OOo, URE or SDK instance
+         */
+        private void remove(Object element) {
+            if (element instanceof IOOo) {
+                OOoContainer.delOOo((IOOo) element);
+            } else if (element instanceof ISdk) {
+                SDKContainer.delSDK((ISdk) element);
+            }
+        }
+    }
 }
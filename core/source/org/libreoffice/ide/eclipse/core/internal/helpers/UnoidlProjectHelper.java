@@ -39,7 +39,6 @@ package org.libreoffice.ide.eclipse.core.internal.helpers;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -524,6 +523,8 @@ public class UnoidlProjectHelper {
      * @param res
      *            the resource to check
      * @return <code>true</code> if the resource is contained in the package
+     *
+     * @see PackageContentCache
      */
     public static boolean isContainedInPackage(IResource res) {
         boolean contained = false;
@@ -531,29 +532,8 @@ public class UnoidlProjectHelper {
         String prjName = res.getProject().getName();
         IUnoidlProject prj = ProjectsManager.getProject(prjName);
 
-        try {
-            URI resUri = res.getLocationURI();
-
-            if (prj != null) {
-
-                File outputDir = new File(System.getProperty("user.home")); //$NON-NLS-1$
-
-                File dest = new File(outputDir, prj.getName() + ".zip"); //$NON-NLS-1$
-                UnoPackage unoPackage = createMinimalUnoPackage(prj, dest);
-
-                List<File> files = unoPackage.getContainedFiles();
-                int i = 0;
-                while (i < files.size() && !contained) {
-                    URI uri = files.get(i).toURI();
-                    if (uri.equals(resUri)) {
-                        contained = true;
-                    }
-                    i++;
-                }
-                unoPackage.dispose();
-            }
-        } catch (Exception e) {
-            contained = false;
+        if (prj != null) {
+            contained = PackageContentCache.contains(prj, res);
         }
 
         return contained;
@@ -565,6 +545,8 @@ public class UnoidlProjectHelper {
      * @param prj
      *            the project for which to get the minimal resources
      * @return the list of files
+     *
+     * @see PackageContentCache
      */
     public static List<IResource> getContainedFile(IProject prj) {
         ArrayList<IResource> resources = new ArrayList<IResource>();
@@ -573,23 +555,7 @@ public class UnoidlProjectHelper {
         IUnoidlProject unoPrj = ProjectsManager.getProject(prjName);
 
         if (unoPrj != null) {
-
-            File outputDir = new File(System.getProperty("user.home")); //$NON-NLS-1$
-
-            File dest = new File(outputDir, prj.getName() + ".zip"); //$NON-NLS-1$
-            UnoPackage unoPackage = UnoidlProjectHelper.createMinimalUnoPackage(unoPrj, dest);
-
-            List<File> files = unoPackage.getContainedFiles();
-            File prjFile = SystemHelper.getFile(prj);
-            for (File file : files) {
-                String relative = UnoPackage.getPathRelativeToBase(file, prjFile);
-                IResource res = prj.findMember(relative);
-                if (res != null) {
-                    resources.add(res);
-                }
-            }
-
-            unoPackage.dispose();
+            resources.addAll(PackageContentCache.getContainedResources(unoPrj));
         }
 
         return resources;
@@ -42,14 +42,18 @@ import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 
+import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.swt.graphics.Image;
+import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.gui.ITableElement;
 import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
@@ -58,6 +62,7 @@ import org.libreoffice.ide.eclipse.core.model.config.IExtraOptionsProvider;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
 import org.libreoffice.ide.eclipse.core.model.config.InvalidConfigException;
 import org.libreoffice.ide.eclipse.core.model.utils.SystemHelper;
+import org.osgi.framework.Bundle;
 
 /**
  * Helper class to add the table element features to the OOo classes. All the {@link IOOo} interface still has to be
@@ -71,11 +76,29 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
 
     protected static final String FILE_SEP = System.getProperty("file.separator"); //$NON-NLS-1$
 
+    private static final String RUNNER_CLASS =
+        "org.libreoffice.ide.eclipse.core.internal.office.UreMainRunner"; //$NON-NLS-1$
+
     private static String sPlatform;
 
     private String mHome;
     private String mName;
 
+    /**
+     * The output of <code>javaldx</code>, which only depends on the installation. Guarded by the instance lock, like
+     * the JVM class path: concurrent launches share them.
+     */
+    private String mJavaLibraryPath;
+
+    private String mJvmClassPath;
+
+    /**
+     * Creating an OOo or URE instance restored from the saved configuration: its installation will only be checked by
+     * {@link #validate()}.
+     */
+    protected AbstractOOo() {
+    }
+
     /**
      * Creating a new OOo or URE instance specifying its home directory.
      *
@@ -109,8 +132,44 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
      */
     @Override
     public void setHome(String home) throws InvalidConfigException {
+        // validate() checks the installation of mHome: an invalid one mustn't be kept
+        String previous = mHome;
+        mHome = home;
+        try {
+            validate();
+        } catch (InvalidConfigException e) {
+            mHome = previous;
+            throw e;
+        }
+
+        synchronized (this) {
+            mJavaLibraryPath = null;
+            mJvmClassPath = null;
+        }
+    }
+
+    /**
+     * Sets the home directory and name of an instance restored from the saved configuration without checking them.
+     *
+     * @param home
+     *            the LibreOffice or URE installation directory
+     * @param name
+     *            the LibreOffice or URE instance name
+     */
+    protected void restoreHome(String home, String name) {
+        mHome = home;
+        setName(name);
+    }
 
-        Path homePath = new Path(home);
+    /**
+     * Checks that the home directory contains the required files and directories.
+     *
+     * @throws InvalidConfigException
+     *             if the home directory isn't a valid installation
+     */
+    public void validate() throws InvalidConfigException {
+
+        Path homePath = new Path(mHome);
         File homeFile = homePath.toFile();
 
         /* Checks if the directory exists */
@@ -120,8 +179,6 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
                 homeFile.getAbsolutePath(), InvalidConfigException.INVALID_OOO_HOME);
         }
 
-        mHome = home;
-
         /* Checks if the classes paths are directories */
         checkClassesDir();
 
@@ -333,9 +390,61 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
             " -- " + args; //$NON-NLS-1$
 
         String[] env = prj.getLanguage().getLanguageBuilder().getBuildEnv(prj);
+        env = addJavaLibraryPath(prj, env, monitor);
 
-        if (getJavaldxPath() != null) {
-            Process p = prj.getSdk().runToolWithEnv(prj, getJavaldxPath(), env, monitor);
+        Process p = prj.getSdk().runToolWithEnv(prj, command, env, monitor);
+        DebugPlugin.newProcess(launch, p, Messages.getString("AbstractOOo.UreProcessName") + main); //$NON-NLS-1$
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runUnoInJvm(IUnoidlProject prj, String main, String args, ILaunch launch, IProgressMonitor monitor) {
+        String pathSeparator = System.getProperty("path.separator"); //$NON-NLS-1$
+        File component = new File(prj.getLanguage().getProjectHandler().getLibraryPath(prj));
+
+        String[] env = prj.getLanguage().getLanguageBuilder().getBuildEnv(prj);
+        env = addJavaLibraryPath(prj, env, monitor);
+        env = SystemHelper.addEnv(env, "URE_BOOTSTRAP", //$NON-NLS-1$
+            "vnd.sun.star.pathname:" + getUnorcPath(), null); //$NON-NLS-1$
+
+        StringBuilder nativePath = new StringBuilder();
+        for (String path : getLibsPath()) {
+            if (nativePath.length() > 0) {
+                nativePath.append(pathSeparator);
+            }
+            nativePath.append(path);
+        }
+
+        String java = System.getProperty("java.home") + FILE_SEP + "bin" + //$NON-NLS-1$ //$NON-NLS-2$
+            FILE_SEP + "java"; //$NON-NLS-1$
+        String command = quote(java) + " -cp " + quote(getJvmClassPath()) + //$NON-NLS-1$
+            " -Djava.library.path=" + quote(nativePath.toString()) + //$NON-NLS-1$
+            " " + RUNNER_CLASS + " " + main + //$NON-NLS-1$ //$NON-NLS-2$
+            " " + quote(component.toURI().toString()) + " " + args; //$NON-NLS-1$ //$NON-NLS-2$
+
+        Process p = prj.getSdk().runToolWithEnv(prj, command, env, monitor);
+        DebugPlugin.newProcess(launch, p, Messages.getString("AbstractOOo.UreProcessName") + main); //$NON-NLS-1$
+    }
+
+    /**
+     * Adds the libraries path computed by <code>javaldx</code> to an environment. <code>javaldx</code> is only run
+     * once per installation.
+     *
+     * @param prj
+     *            the project to run
+     * @param env
+     *            the environment to complete
+     * @param monitor
+     *            a monitor to follow the progress
+     *
+     * @return the completed environment
+     */
+    private synchronized String[] addJavaLibraryPath(IUnoidlProject prj, String[] env, IProgressMonitor monitor) {
+        String javaldx = getJavaldxPath();
+        if (mJavaLibraryPath == null && javaldx != null && new File(javaldx).isFile()) {
+            Process p = prj.getSdk().runToolWithEnv(prj, javaldx, env, monitor);
             InputStream out = p.getInputStream();
             StringWriter writer = new StringWriter();
 
@@ -348,13 +457,60 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
             } catch (IOException e) {
             }
 
-            String libPath = writer.getBuffer().toString();
-            env = SystemHelper.addEnv(env, "LD_LIBRARY_PATH", libPath.trim(), //$NON-NLS-1$
+            mJavaLibraryPath = writer.getBuffer().toString().trim();
+        }
+
+        String[] result = env;
+        if (mJavaLibraryPath != null && !mJavaLibraryPath.isEmpty()) {
+            result = SystemHelper.addEnv(env, "LD_LIBRARY_PATH", mJavaLibraryPath, //$NON-NLS-1$
                 System.getProperty("path.separator")); //$NON-NLS-1$
         }
+        return result;
+    }
 
-        Process p = prj.getSdk().runToolWithEnv(prj, command, env, monitor);
-        DebugPlugin.newProcess(launch, p, Messages.getString("AbstractOOo.UreProcessName") + main); //$NON-NLS-1$
+    /**
+     * @return the class path of the JVM running the <code>XMain</code> implementations: the office jars and the
+     *         plugin
+     */
+    private synchronized String getJvmClassPath() {
+        if (mJvmClassPath == null) {
+            StringBuilder classPath = new StringBuilder();
+            for (String path : getClassesPath()) {
+                File[] jars = new File(path).listFiles();
+                if (jars != null) {
+                    for (File jar : jars) {
+                        if (jar.getName().endsWith(".jar")) { //$NON-NLS-1$
+                            classPath.append(jar.getAbsolutePath()).append(File.pathSeparatorChar);
+                        }
+                    }
+                }
+            }
+
+            try {
+                Bundle bundle = OOEclipsePlugin.getDefault().getBundle();
+                File plugin = FileLocator.getBundleFile(bundle);
+                if (plugin.isDirectory()) {
+                    // Unpacked bundle: the classes may be in an output folder, use the bundle class path root
+                    URL classes = FileLocator.toFileURL(bundle.getResource("/")); //$NON-NLS-1$
+                    plugin = URIUtil.toFile(URIUtil.toURI(classes));
+                }
+                classPath.append(plugin.getAbsolutePath());
+            } catch (IOException | URISyntaxException e) {
+                PluginLogger.error(e.getMessage(), e);
+            }
+            mJvmClassPath = classPath.toString();
+        }
+        return mJvmClassPath;
+    }
+
+    /**
+     * @param path
+     *            the path to protect
+     *
+     * @return the path between double quotes for the command line
+     */
+    private static String quote(String path) {
+        return '"' + path + '"';
     }
 
     /**
@@ -380,6 +536,7 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
             env = SystemHelper.addEnv(env, "SAL_ALLOW_LINKOO_SYMLINKS", "1", null);
             env = addUserProfile(userInstallation, env);
             env = extraOptionsProvider.addEnv(env);
+            command = extraOptionsProvider.addArguments(command);
 
             PluginLogger.debug("Launching LibreOffice from commandline: " + command);
             Process p = prj.getSdk().runToolWithEnv(prj, command, env, monitor);
@@ -390,6 +547,29 @@ public abstract class AbstractOOo implements IOOo, ITableElement {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Process startOffice(IPath userInstallation, String acceptArgument) throws Exception {
+        String pathSeparator = System.getProperty("path.separator"); //$NON-NLS-1$
+        StringBuilder sPathValue = new StringBuilder();
+        for (String sPath : getBinPath()) {
+            sPathValue.append(sPath);
+            sPathValue.append(pathSeparator);
+        }
+
+        String[] env = SystemHelper.getSystemEnvironement();
+        env = SystemHelper.addEnv(env, "PATH", sPathValue.toString(), pathSeparator); //$NON-NLS-1$
+        env = SystemHelper.addEnv(env, "SAL_ALLOW_LINKOO_SYMLINKS", "1", null); //$NON-NLS-1$ //$NON-NLS-2$
+        env = addUserProfile(userInstallation, env);
+
+        String command = "soffice.bin --invisible --norestore --nologo --nodefault --nolockcheck " + //$NON-NLS-1$
+            acceptArgument;
+        PluginLogger.debug("Starting LibreOffice from commandline: " + command); //$NON-NLS-1$
+        return SystemHelper.runTool(command, env, null);
+    }
+
     /**
      * Adds the proper env variables for the user profile.
      *
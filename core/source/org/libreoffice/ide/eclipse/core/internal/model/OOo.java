@@ -38,14 +38,16 @@ package org.libreoffice.ide.eclipse.core.internal.model;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -55,6 +57,10 @@ import org.eclipse.swt.widgets.Display;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.model.config.InvalidConfigException;
 import org.libreoffice.ide.eclipse.core.model.utils.SystemHelper;
+import org.libreoffice.ide.eclipse.core.office.LiveOffice;
+import org.libreoffice.ide.eclipse.core.office.OfficeLease;
+import org.libreoffice.ide.eclipse.core.office.OfficePool;
+import org.libreoffice.plugin.core.model.PackageValidator;
 
 /**
  * Representing an LibreOffice instance for use in the UNO-IDL projects.
@@ -82,6 +88,11 @@ public class OOo extends AbstractOOo {
 
     private OOo3PathMapper mMapper;
 
+    /**
+     * The installation paths, computed once for all the callers.
+     */
+    private volatile OfficePaths mPaths;
+
     /**
      * Creating a new LibreOffice instance specifying its home directory.
      *
@@ -110,10 +121,38 @@ public class OOo extends AbstractOOo {
         super(home, oooName);
     }
 
+    /**
+     * Creating a LibreOffice instance restored from the saved configuration.
+     */
+    private OOo() {
+        super();
+    }
+
+    /**
+     * Restores a LibreOffice instance from the saved configuration without checking its installation.
+     *
+     * <p>
+     * The installation files are located on the first use of the instance and {@link #validate()} has to be called
+     * later to check it.
+     * </p>
+     *
+     * @param home
+     *            the LibreOffice installation path
+     * @param oooName
+     *            the LibreOffice instance name
+     *
+     * @return the restored instance
+     */
+    public static OOo restore(String home, String oooName) {
+        OOo ooo = new OOo();
+        ooo.restoreHome(home, oooName);
+        return ooo;
+    }
+
     // ----------------------------------------------------- IOOo Implementation
 
     /**
-     * Overridden to initialize the path mapper for 00o3 installations.
+     * Overridden to use the <code>Contents</code> folder of the Mac OS X bundles.
      *
      * @param home
      *            the LibreOffice installation path to set.
@@ -128,7 +167,7 @@ public class OOo extends AbstractOOo {
             home = home + FILE_SEP + "Contents"; //$NON-NLS-1$
         }
 
-        mMapper = new OOo3PathMapper(home);
+        // The path mapper is initialized by validate()
         super.setHome(home);
     }
 
@@ -136,39 +175,84 @@ public class OOo extends AbstractOOo {
      * {@inheritDoc}
      */
     @Override
-    public String[] getClassesPath() {
-        return mMapper.getClasses();
+    protected void restoreHome(String home, String name) {
+        if (getPlatform().equals(Platform.OS_MACOSX)) {
+            home = home + FILE_SEP + "Contents"; //$NON-NLS-1$
+        }
+        super.restoreHome(home, name);
     }
 
     /**
-     * {@inheritDoc}
+     * Overridden to locate the installation files again.
+     *
+     * @throws InvalidConfigException
+     *             if the installation doesn't contain the required files.
      */
     @Override
-    public String[] getLibsPath() {
-        // Nothing if not OOo3
-        String[] otherPaths = mMapper.getAdditionnalLibs();
-        String libs = getHome() + FILE_SEP + "program"; //$NON-NLS-1$
-        if (getPlatform().equals(Platform.OS_MACOSX)) {
-            libs = getHome() + FILE_SEP + "MacOS"; //$NON-NLS-1$
+    public void validate() throws InvalidConfigException {
+        OOo3PathMapper mapper = new OOo3PathMapper(getHome());
+        mapper.initPaths();
+        OOo3PathMapper previous = setMapper(mapper);
+        try {
+            super.validate();
+        } catch (InvalidConfigException e) {
+            setMapper(previous);
+            throw e;
         }
+    }
+
+    /**
+     * @param mapper
+     *            the path mapper to use
+     *
+     * @return the path mapper used until now
+     */
+    private synchronized OOo3PathMapper setMapper(OOo3PathMapper mapper) {
+        OOo3PathMapper previous = mMapper;
+        mMapper = mapper;
+        mPaths = null;
+        return previous;
+    }
 
-        return mMapper.mergeArrays(new String[] { libs }, otherPaths);
+    /**
+     * Get the path mapper, initializing it if the instance has been restored without being validated yet.
+     *
+     * @return the path mapper
+     */
+    private synchronized OOo3PathMapper getMapper() {
+        if (mMapper == null) {
+            mMapper = new OOo3PathMapper(getHome());
+            try {
+                mMapper.initPaths();
+            } catch (InvalidConfigException e) {
+                PluginLogger.warning(e.getLocalizedMessage(), e);
+            }
+        }
+        return mMapper;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public String[] getBinPath() {
-        // Nothing if not OOo3
-        String[] otherPaths = mMapper.getAdditionnalBins();
+    public String[] getClassesPath() {
+        return getPaths().mClasses.clone();
+    }
 
-        String bins = getHome() + FILE_SEP + "program"; //$NON-NLS-1$
-        if (Platform.getOS().equals(Platform.OS_MACOSX)) {
-            bins = getHome() + FILE_SEP + "MacOS"; //$NON-NLS-1$
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getLibsPath() {
+        return getPaths().mLibs.clone();
+    }
 
-        return mMapper.mergeArrays(new String[] { bins }, otherPaths);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getBinPath() {
+        return getPaths().mBins.clone();
     }
 
     /**
@@ -176,7 +260,7 @@ public class OOo extends AbstractOOo {
      */
     @Override
     public String[] getTypesPath() {
-        return mMapper.getTypes();
+        return getPaths().mTypes.clone();
     }
 
     /**
@@ -184,7 +268,70 @@ public class OOo extends AbstractOOo {
      */
     @Override
     public String[] getServicesPath() {
-        return mMapper.getServices();
+        return getPaths().mServices.clone();
+    }
+
+    /**
+     * Get the installation paths, computing them again if the installation has been modified since they were
+     * computed.
+     *
+     * @return the installation paths
+     */
+    private OfficePaths getPaths() {
+        OfficePaths paths = mPaths;
+        if (paths == null || paths.mStamp != getHomeStamp()) {
+            if (paths != null) {
+                // The installation changed: the files have to be located again
+                setMapper(null);
+            }
+            paths = new OfficePaths(getMapper());
+            mPaths = paths;
+        }
+        return paths;
+    }
+
+    /**
+     * @return the modification stamp of the installation directory
+     */
+    private long getHomeStamp() {
+        long stamp = 0;
+        if (getHome() != null) {
+            stamp = new File(getHome()).lastModified();
+        }
+        return stamp;
+    }
+
+    /**
+     * @param mapper
+     *            the path mapper to use
+     * @return the libraries paths
+     */
+    private String[] computeLibsPath(OOo3PathMapper mapper) {
+        // Nothing if not OOo3
+        String[] otherPaths = mapper.getAdditionnalLibs();
+        String libs = getHome() + FILE_SEP + "program"; //$NON-NLS-1$
+        if (getPlatform().equals(Platform.OS_MACOSX)) {
+            libs = getHome() + FILE_SEP + "MacOS"; //$NON-NLS-1$
+        }
+
+        return mapper.mergeArrays(new String[] { libs }, otherPaths);
+    }
+
+    /**
+     * @param mapper
+     *            the path mapper to use
+     * @return the binaries paths
+     */
+    private String[] computeBinPath(OOo3PathMapper mapper) {
+        // Nothing if not OOo3
+        String[] otherPaths = mapper.getAdditionnalBins();
+
+        String bins = getHome() + FILE_SEP + "program"; //$NON-NLS-1$
+        if (Platform.getOS().equals(Platform.OS_MACOSX)) {
+            bins = getHome() + FILE_SEP + "MacOS"; //$NON-NLS-1$
+        }
+
+        return mapper.mergeArrays(new String[] { bins }, otherPaths);
     }
 
     /**
@@ -208,7 +355,7 @@ public class OOo extends AbstractOOo {
      */
     @Override
     public String getUnoPath() {
-        return mMapper.getUnoPath();
+        return getMapper().getUnoPath();
     }
 
     /**
@@ -324,7 +471,7 @@ public class OOo extends AbstractOOo {
      */
     @Override
     public String getJavaldxPath() {
-        String javaldx = getLibsPath() + FILE_SEP + "javaldx"; //$NON-NLS-1$
+        String javaldx = getLibsPath()[0] + FILE_SEP + "javaldx"; //$NON-NLS-1$
         return javaldx;
     }
 
@@ -340,12 +487,22 @@ public class OOo extends AbstractOOo {
      * {@inheritDoc}
      */
     @Override
-    public void updatePackage(File packageFile, IPath userInstallation) {
+    public boolean updatePackage(File packageFile, IPath userInstallation) {
+        return updatePackages(Collections.singletonList(packageFile), userInstallation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updatePackages(List<File> packageFiles, IPath userInstallation) {
 
+        boolean deployed = false;
         // Check if there is already a package with the same name
         try {
-            // Add the package
-            addPackage(packageFile, userInstallation);
+            // Add the packages
+            addPackages(packageFiles, userInstallation);
+            deployed = true;
 
         } catch (Exception e) {
             Display.getDefault().asyncExec(new Runnable() {
@@ -358,23 +515,107 @@ public class OOo extends AbstractOOo {
             });
             PluginLogger.error(Messages.getString("OOo.DeploymentError"), e); //$NON-NLS-1$
         }
+        return deployed;
     }
 
     /**
-     * Add a Uno package to the LibreOffice user packages.
+     * Add Uno packages to the LibreOffice user packages.
+     *
+     * <p>
+     * When an office started by the plugin is running on the user profile, either launched or idle in the
+     * {@link OfficePool}, the package is deployed by its extension manager: this is much faster than
+     * <code>unopkg</code>, which can't be used while the office is running anyway. <code>unopkg</code> is used
+     * otherwise.
+     * </p>
+     *
+     * <p>
+     * If a launched office fails to deploy the packages, the failure is reported: the office is still writing to the
+     * user profile. An idle pooled office failing to deploy them is stopped before falling back to
+     * <code>unopkg</code>.
+     * </p>
+     *
+     * @param packageFiles
+     *            the package files to add
+     * @param userInstallation
+     *            path to the user profile folder.
+     * @throws Exception
+     *             if anything wrong happens
+     */
+    private void addPackages(List<File> packageFiles, IPath userInstallation) throws Exception {
+        // Check the packages before the costly deployment
+        for (File packageFile : packageFiles) {
+            List<String> warnings = new ArrayList<String>();
+            List<String> problems = PackageValidator.validate(packageFile, warnings);
+            for (String warning : warnings) {
+                PluginLogger.warning(warning);
+            }
+            if (!problems.isEmpty()) {
+                for (String problem : problems) {
+                    PluginLogger.error(problem);
+                }
+                throw new Exception(Messages.getString("OOo.InvalidPackageError") + //$NON-NLS-1$
+                    packageFile.getAbsolutePath());
+            }
+        }
+
+        boolean deployed = false;
+        LiveOffice office = LiveOffice.getRunning(this, userInstallation);
+        if (office != null) {
+            for (File packageFile : packageFiles) {
+                try {
+                    office.deploy(packageFile);
+                } catch (Exception e) {
+                    // unopkg can't write the profile of the running office
+                    throw new Exception(Messages.getString("OOo.LiveDeploymentError") + //$NON-NLS-1$
+                        packageFile.getAbsolutePath(), e);
+                }
+            }
+            deployed = true;
+        }
+
+        OfficeLease lease = null;
+        if (!deployed) {
+            lease = OfficePool.leaseIdle(this, userInstallation);
+        }
+        if (lease != null) {
+            try {
+                for (File packageFile : packageFiles) {
+                    lease.deploy(packageFile);
+                }
+                deployed = true;
+                lease.release();
+            } catch (Exception e) {
+                // Stop the office before letting unopkg write its profile
+                PluginLogger.warning(Messages.getString("OOo.PooledDeploymentError"), e); //$NON-NLS-1$
+                if (!lease.discard()) {
+                    throw new Exception(Messages.getString("OOo.PooledOfficeStopError"), e); //$NON-NLS-1$
+                }
+            }
+        }
+
+        if (!deployed) {
+            runUnopkgAdd(packageFiles, userInstallation);
+        }
+    }
+
+    /**
+     * Add Uno packages to the LibreOffice user packages using a single <code>unopkg</code> run.
      *
      * FIXME This method has to handle license approval
      *
-     * @param packageFile
-     *            the package file to add
+     * @param packageFiles
+     *            the package files to add
      * @param userInstallation
      *            path to the user profile folder.
      * @throws Exception
      *             if anything wrong happens
      */
-    private void addPackage(File packageFile, IPath userInstallation) throws Exception {
-        String path = packageFile.getAbsolutePath();
-        String shellCommand = MessageFormat.format("unopkg add -f \"{0}\"", path); //$NON-NLS-1$
+    private void runUnopkgAdd(List<File> packageFiles, IPath userInstallation) throws Exception {
+        StringBuilder paths = new StringBuilder();
+        for (File packageFile : packageFiles) {
+            paths.append(MessageFormat.format(" \"{0}\"", packageFile.getAbsolutePath())); //$NON-NLS-1$
+        }
+        String shellCommand = "unopkg add -f" + paths; //$NON-NLS-1$
 
         // We need system env variables - at least on Linux the unopkg is in the global path, but not in instdir/program
         String[] env = SystemHelper.getSystemEnvironement();
@@ -387,11 +628,12 @@ public class OOo extends AbstractOOo {
         InputStreamReader in = new InputStreamReader(process.getInputStream());
         LineNumberReader reader = new LineNumberReader(in);
 
+        // Keep the error lines to report them
+        StringBuilder errors = new StringBuilder();
         String line = reader.readLine();
-        boolean failed = false;
-        while (null != line && !failed) {
-            if (line.contains("failed")) { //$NON-NLS-1$
-                failed = true;
+        while (null != line) {
+            if (line.contains("failed") || line.contains("ERROR")) { //$NON-NLS-1$ //$NON-NLS-2$
+                errors.append('\n').append(line);
             }
             line = reader.readLine();
         }
@@ -402,9 +644,37 @@ public class OOo extends AbstractOOo {
         } catch (Exception e) {
         }
 
-        if (failed) {
+        if (process.waitFor() != 0 || errors.length() > 0) {
             throw new Exception(Messages.getString("OOo.PackageAddError") + //$NON-NLS-1$
-                packageFile.getAbsolutePath());
+                paths.toString().trim() + errors);
+        }
+    }
+
+    /**
+     * Immutable copy of the installation paths. The arrays are never returned directly to the callers.
+     */
+    private final class OfficePaths {
+
+        private final long mStamp;
+        private final String[] mClasses;
+        private final String[] mLibs;
+        private final String[] mBins;
+        private final String[] mTypes;
+        private final String[] mServices;
+
+        /**
+         * Computes all the installation paths.
+         *
+         * @param mapper
+         *            the path mapper to use
+         */
+        OfficePaths(OOo3PathMapper mapper) {
+            mStamp = getHomeStamp();
+            mClasses = mapper.getClasses();
+            mLibs = computeLibsPath(mapper);
+            mBins = computeBinPath(mapper);
+            mTypes = mapper.getTypes();
+            mServices = mapper.getServices();
         }
     }
 
@@ -413,8 +683,24 @@ public class OOo extends AbstractOOo {
      */
     private class OOo3PathMapper {
 
+        private static final String UNOIL_JAR = "unoil.jar"; //$NON-NLS-1$
+
+        private static final String OFFAPI_RDB = "offapi.rdb"; //$NON-NLS-1$
+
+        private static final String SERVICES_RDB = "services.rdb"; //$NON-NLS-1$
+
         private String mHome;
 
+        /**
+         * The relative paths looked for in the installation.
+         */
+        private String[] mSearchedPaths;
+
+        /**
+         * The relative paths of which all the copies are needed: they are searched in the whole installation tree.
+         */
+        private Set<String> mCompletePaths;
+
         /**
          * This field holds the URE instance to use for OOo3.
          */
@@ -431,11 +717,11 @@ public class OOo extends AbstractOOo {
          *
          * @param home
          *            the LibreOffice install home
-         * @throws InvalidConfigException
          */
-        public OOo3PathMapper(String home) throws InvalidConfigException {
+        public OOo3PathMapper(String home) {
             mHome = home;
-            initPaths();
+            mSearchedPaths = new String[] { getSofficeName(), UNOIL_JAR, OFFAPI_RDB, SERVICES_RDB };
+            mCompletePaths = new HashSet<String>(Arrays.asList(OFFAPI_RDB, SERVICES_RDB));
         }
 
         private void initPaths() throws InvalidConfigException {
@@ -447,28 +733,30 @@ public class OOo extends AbstractOOo {
                 // todo
                 unoRelativePath = "program/" + URE.getUnoExecutable();
             }
+
+            // All the files needed later are searched in the same pass, see mSearchedPaths
             File ureDir = locateUniqueContainer(mHome, unoRelativePath);
             if (ureDir == null) {
-                mHome = null;
                 throw new InvalidConfigException(Messages.getString("AbstractOOo.NoFileError") + unoRelativePath,
                     InvalidConfigException.INVALID_OOO_HOME);
             }
             mUre = new URE(ureDir.getAbsolutePath());
         }
 
+        private String getSofficeName() {
+            String sofficeName = "soffice.bin";
+            if (getPlatform().equals(Platform.OS_MACOSX)) {
+                sofficeName = "soffice";
+            }
+            return sofficeName;
+        }
+
         private File locateUniqueContainer(String baseDir, String unoRelativePath) throws InvalidConfigException {
             File file = null;
             File base = new File(baseDir);
             if (base.exists() && base.isDirectory() && base.canRead()) {
-                List<File> dirs = new RelativeFileLocator(base, unoRelativePath).getFiles();
-                if (dirs == null) {
-                    throw new InvalidConfigException(Messages.getString("AbstractOOo.NoFileError") + unoRelativePath,
-                        InvalidConfigException.INVALID_OOO_HOME);
-                }
-                if (dirs.size() > 1) {
-                    // remove link if there is duplicate
-                    removeLinks(dirs, unoRelativePath);
-                }
+                List<File> dirs = OfficeLayoutLocator.getContainers(base, mCompletePaths, unoRelativePath,
+                    mSearchedPaths);
                 if (dirs.size() != 1) {
                     throw new InvalidConfigException(Messages.getString("AbstractOOo.NoFileError") + unoRelativePath,
                         InvalidConfigException.INVALID_OOO_HOME);
@@ -483,41 +771,14 @@ public class OOo extends AbstractOOo {
             List<File> returnList = null;
             File base = new File(baseDir);
             if (base.exists() && base.isDirectory() && base.canRead()) {
-                List<File> dirs = new RelativeFileLocator(base, unoRelativePath).getFiles();
-                if (dirs == null || dirs.size() == 0) {
-                    returnList = Collections.emptyList();
-                } else {
-                    // remove link if there is duplicate
-                    removeLinks(dirs, unoRelativePath);
-                    returnList = new ArrayList<File>();
-                    for (File tmpFile : dirs) {
-                        returnList.add(new File(tmpFile, unoRelativePath));
-                    }
-                }
-            }
-            return returnList;
-        }
-
-        private void removeLinks(List<File> dirs, String unoRelativePath) throws InvalidConfigException {
-            try {
-                List<File> linksList = new ArrayList<File>();
+                List<File> dirs = OfficeLayoutLocator.getContainers(base, mCompletePaths, unoRelativePath,
+                    mSearchedPaths);
+                returnList = new ArrayList<File>();
                 for (File tmpFile : dirs) {
-                    if (AbstractOOo.isSymbolicLink(tmpFile)) {
-                        linksList.add(tmpFile);
-                    }
+                    returnList.add(new File(tmpFile, unoRelativePath));
                 }
-                if (!linksList.isEmpty()) {
-                    for (File link : linksList) {
-                        File linkTarget = AbstractOOo.getTargetLink(link);
-                        if (dirs.contains(linkTarget)) {
-                            dirs.remove(linkTarget);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                throw new InvalidConfigException(Messages.getString("AbstractOOo.NoFileError") + unoRelativePath,
-                    InvalidConfigException.INVALID_OOO_HOME);
             }
+            return returnList;
         }
 
         /**
@@ -525,7 +786,11 @@ public class OOo extends AbstractOOo {
          * @throws InvalidConfigException
          */
         public String[] getAdditionnalLibs() {
-            return mUre.getLibsPath();
+            String[] libs = new String[0];
+            if (mUre != null) {
+                libs = mUre.getLibsPath();
+            }
+            return libs;
         }
 
         /**
@@ -541,12 +806,8 @@ public class OOo extends AbstractOOo {
 
             File basisLibs = this.mMapperBasisBins;
             if (basisLibs == null) {
-                String sofficeName = "soffice.bin";
-                if (getPlatform().equals(Platform.OS_MACOSX)) {
-                    sofficeName = "soffice";
-                }
                 try {
-                    basisLibs = locateUniqueContainer(mHome, sofficeName);
+                    basisLibs = locateUniqueContainer(mHome, getSofficeName());
                     this.mMapperBasisBins = basisLibs;
                 } catch (InvalidConfigException e) {
                     e.printStackTrace();
@@ -576,7 +837,7 @@ public class OOo extends AbstractOOo {
             File basisClasses = this.mMapperBasisClasses;
             if (mMapperBasisClasses == null) {
                 try {
-                    basisClasses = locateUniqueContainer(mHome, "unoil.jar");
+                    basisClasses = locateUniqueContainer(mHome, UNOIL_JAR);
                     mMapperBasisClasses = basisClasses;
                 } catch (InvalidConfigException e) {
                     e.printStackTrace();
@@ -606,7 +867,7 @@ public class OOo extends AbstractOOo {
             List<File> basisTypes = this.mMapperBasisTypes;
             if (mMapperBasisTypes == null) {
                 try {
-                    basisTypes = locateFiles(mHome, "offapi.rdb");
+                    basisTypes = locateFiles(mHome, OFFAPI_RDB);
                     mMapperBasisTypes = basisTypes;
                 } catch (InvalidConfigException e) {
                     e.printStackTrace();
@@ -642,7 +903,7 @@ public class OOo extends AbstractOOo {
             List<File> basisTypes = this.mMapperBasisServices;
             if (mMapperBasisServices == null) {
                 try {
-                    basisTypes = locateFiles(mHome, "services.rdb");
+                    basisTypes = locateFiles(mHome, SERVICES_RDB);
                     mMapperBasisServices = basisTypes;
                 } catch (InvalidConfigException e) {
                     e.printStackTrace();
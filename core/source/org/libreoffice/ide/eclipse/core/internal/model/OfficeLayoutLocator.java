@@ -0,0 +1,492 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.internal.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+
+/**
+ * Locates the files of a LibreOffice installation.
+ *
+ * <p>
+ * The standard layouts (<code>program/</code>, <code>URE/</code>, <code>basis-link/</code> and the Mac OS X
+ * bundle folders) are probed first. Only the files which can't be found there are searched in the installation
+ * tree, in a single pass for all of them, without going deeper than {@link #MAX_DEPTH} and without following the
+ * symbolic links to already visited folders.
+ * </p>
+ *
+ * <p>
+ * The files which may have several copies, like the types registries, can be requested as <em>complete</em>: they
+ * are always searched in the installation tree too, so that the copies outside of the standard layouts are found.
+ * </p>
+ *
+ * <p>
+ * The located folders are saved in the plugin state location with the modification stamp of the installation: they
+ * are reused as long as the installation isn't modified.
+ * </p>
+ */
+public class OfficeLayoutLocator {
+
+    /**
+     * The maximum depth of the folders searched in the installation tree.
+     */
+    private static final int MAX_DEPTH = 4;
+
+    private static final String RECORDS_FILE = ".office_layouts"; //$NON-NLS-1$
+
+    private static final String STAMP_SUFFIX = "@stamp"; //$NON-NLS-1$
+
+    /**
+     * Marks the records of the complete lookups: they can't be reused for the other ones, and the reverse.
+     */
+    private static final String COMPLETE_MARK = "@complete"; //$NON-NLS-1$
+
+    private static final String[] STANDARD_DIRS = {
+        "", //$NON-NLS-1$
+        "program", //$NON-NLS-1$
+        "program/classes", //$NON-NLS-1$
+        "program/types", //$NON-NLS-1$
+        "URE/bin", //$NON-NLS-1$
+        "URE/java", //$NON-NLS-1$
+        "URE/misc", //$NON-NLS-1$
+        "basis-link/program", //$NON-NLS-1$
+        "basis-link/program/classes", //$NON-NLS-1$
+        "basis-link/ure-link/bin", //$NON-NLS-1$
+        "basis-link/ure-link/share/java", //$NON-NLS-1$
+        "basis-link/ure-link/share/misc", //$NON-NLS-1$
+        "ure-link/bin", //$NON-NLS-1$
+        "ure-link/share/java", //$NON-NLS-1$
+        "ure-link/share/misc", //$NON-NLS-1$
+        "MacOS", //$NON-NLS-1$
+        "Frameworks", //$NON-NLS-1$
+        "Resources", //$NON-NLS-1$
+        "Resources/java", //$NON-NLS-1$
+        "Resources/types", //$NON-NLS-1$
+        "Resources/ure/share/misc" //$NON-NLS-1$
+    };
+
+    /**
+     * Folders which never contain any of the searched files but thousands of others.
+     */
+    private static final Set<String> SKIPPED_DIRS = new HashSet<String>(Arrays.asList(
+        "share", //$NON-NLS-1$
+        "help", //$NON-NLS-1$
+        "readmes", //$NON-NLS-1$
+        "licenses", //$NON-NLS-1$
+        "presets", //$NON-NLS-1$
+        "resource")); //$NON-NLS-1$
+
+    private static Properties sRecords;
+
+    /**
+     * Get the folders of an installation containing a relative path.
+     *
+     * <p>
+     * The other relative paths needed by the caller can be given at the same time: they will be searched during the
+     * same pass and cached for the next calls.
+     * </p>
+     *
+     * @param home
+     *            the installation folder
+     * @param relativePath
+     *            the relative path to look for
+     * @param otherPaths
+     *            other relative paths to look for in the same pass
+     *
+     * @return the folders containing the relative path, without the duplicates due to symbolic links
+     */
+    public static List<File> getContainers(File home, String relativePath, String... otherPaths) {
+        return getContainers(home, Collections.<String>emptySet(), relativePath, otherPaths);
+    }
+
+    /**
+     * Get the folders of an installation containing a relative path.
+     *
+     * <p>
+     * The other relative paths needed by the caller can be given at the same time: they will be searched during the
+     * same pass and cached for the next calls.
+     * </p>
+     *
+     * @param home
+     *            the installation folder
+     * @param completePaths
+     *            the relative paths which have to be searched in the whole installation tree even if they are found
+     *            in the standard layouts
+     * @param relativePath
+     *            the relative path to look for
+     * @param otherPaths
+     *            other relative paths to look for in the same pass
+     *
+     * @return the folders containing the relative path, without the duplicates due to symbolic links
+     */
+    public static synchronized List<File> getContainers(File home, Set<String> completePaths, String relativePath,
+        String... otherPaths) {
+        List<File> containers = Collections.emptyList();
+        if (home.isDirectory() && home.canRead()) {
+            String homeKey = getHomeKey(home);
+            String stamp = getStamp(home);
+            if (!stamp.equals(getRecords().getProperty(homeKey + STAMP_SUFFIX))) {
+                forget(homeKey);
+                getRecords().setProperty(homeKey + STAMP_SUFFIX, stamp);
+            }
+
+            List<String> missing = new ArrayList<String>();
+            addIfMissing(missing, homeKey, relativePath, completePaths);
+            for (String otherPath : otherPaths) {
+                addIfMissing(missing, homeKey, otherPath, completePaths);
+            }
+
+            if (!missing.isEmpty()) {
+                Map<String, List<File>> found = locate(home, missing, completePaths);
+                for (Map.Entry<String, List<File>> entry : found.entrySet()) {
+                    getRecords().setProperty(getRecordKey(homeKey, entry.getKey(), completePaths),
+                        join(entry.getValue()));
+                }
+                saveRecords();
+            }
+
+            containers = split(getRecords().getProperty(getRecordKey(homeKey, relativePath, completePaths)));
+        }
+        return containers;
+    }
+
+    /**
+     * Adds a relative path to the list of the paths to locate if its cached folders are unknown or have been removed.
+     *
+     * @param missing
+     *            the list of the paths to locate
+     * @param homeKey
+     *            the key of the installation in the records
+     * @param relativePath
+     *            the relative path
+     * @param completePaths
+     *            the relative paths to search in the whole installation tree
+     */
+    private static void addIfMissing(List<String> missing, String homeKey, String relativePath,
+        Set<String> completePaths) {
+        String value = getRecords().getProperty(getRecordKey(homeKey, relativePath, completePaths));
+        boolean valid = value != null;
+        if (valid) {
+            for (File container : split(value)) {
+                valid &= new File(container, relativePath).exists();
+            }
+        }
+        if (!valid && !missing.contains(relativePath)) {
+            missing.add(relativePath);
+        }
+    }
+
+    /**
+     * @param homeKey
+     *            the key of the installation in the records
+     * @param relativePath
+     *            the relative path
+     * @param completePaths
+     *            the relative paths to search in the whole installation tree
+     *
+     * @return the key of the folders containing the relative path in the records
+     */
+    private static String getRecordKey(String homeKey, String relativePath, Set<String> completePaths) {
+        String key = homeKey + '@' + relativePath;
+        if (completePaths.contains(relativePath)) {
+            key = homeKey + COMPLETE_MARK + '@' + relativePath;
+        }
+        return key;
+    }
+
+    /**
+     * Locates the folders containing the relative paths, first in the standard layouts, then in the whole tree for
+     * the paths which haven't been found there or which have to be complete.
+     *
+     * @param home
+     *            the installation folder
+     * @param relativePaths
+     *            the relative paths to locate
+     * @param completePaths
+     *            the relative paths to search in the whole installation tree
+     *
+     * @return the folders found for each relative path
+     */
+    private static Map<String, List<File>> locate(File home, List<String> relativePaths, Set<String> completePaths) {
+        Map<String, List<File>> found = new LinkedHashMap<String, List<File>>();
+        Map<String, Set<File>> visited = new LinkedHashMap<String, Set<File>>();
+        for (String relativePath : relativePaths) {
+            found.put(relativePath, new ArrayList<File>());
+            visited.put(relativePath, new HashSet<File>());
+        }
+
+        for (String standardDir : STANDARD_DIRS) {
+            File dir = new File(home, standardDir);
+            if (dir.isDirectory()) {
+                checkDir(dir, found, visited);
+            }
+        }
+
+        List<String> notFound = new ArrayList<String>();
+        for (Map.Entry<String, List<File>> entry : found.entrySet()) {
+            if (entry.getValue().isEmpty() || completePaths.contains(entry.getKey())) {
+                notFound.add(entry.getKey());
+            }
+        }
+
+        if (!notFound.isEmpty()) {
+            PluginLogger.debug("Searching " + notFound + " in " + home); //$NON-NLS-1$ //$NON-NLS-2$
+            walk(home, found, visited, notFound);
+        }
+        return found;
+    }
+
+    /**
+     * Searches the relative paths in the installation tree, breadth first.
+     *
+     * @param home
+     *            the installation folder
+     * @param found
+     *            the folders found for each relative path
+     * @param visited
+     *            the canonical files already found for each relative path
+     * @param relativePaths
+     *            the relative paths to search
+     */
+    private static void walk(File home, Map<String, List<File>> found, Map<String, Set<File>> visited,
+        List<String> relativePaths) {
+
+        Map<String, List<File>> searched = new LinkedHashMap<String, List<File>>();
+        Map<String, Set<File>> searchedVisited = new LinkedHashMap<String, Set<File>>();
+        for (String relativePath : relativePaths) {
+            searched.put(relativePath, found.get(relativePath));
+            searchedVisited.put(relativePath, visited.get(relativePath));
+        }
+
+        Set<File> visitedDirs = new HashSet<File>();
+        List<File> level = Collections.singletonList(home);
+        for (int depth = 0; depth <= MAX_DEPTH && !level.isEmpty(); depth++) {
+            List<File> nextLevel = new ArrayList<File>();
+            for (File dir : level) {
+                if (visitedDirs.add(getCanonicalFile(dir))) {
+                    checkDir(dir, searched, searchedVisited);
+                    addChildren(dir, nextLevel);
+                }
+            }
+            level = nextLevel;
+        }
+    }
+
+    /**
+     * Adds the sub-folders which may contain the searched files.
+     *
+     * @param dir
+     *            the folder to list
+     * @param dirs
+     *            the list where to add the sub-folders
+     */
+    private static void addChildren(File dir, List<File> dirs) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isDirectory() && !SKIPPED_DIRS.contains(child.getName())) {
+                    dirs.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a folder contains the relative paths.
+     *
+     * @param dir
+     *            the folder to check
+     * @param found
+     *            the folders found for each relative path
+     * @param visited
+     *            the canonical files already found for each relative path, used to ignore the symbolic links
+     */
+    private static void checkDir(File dir, Map<String, List<File>> found, Map<String, Set<File>> visited) {
+        for (Map.Entry<String, List<File>> entry : found.entrySet()) {
+            File file = new File(dir, entry.getKey());
+            if (file.exists() && visited.get(entry.getKey()).add(getCanonicalFile(file))) {
+                entry.getValue().add(dir);
+            }
+        }
+    }
+
+    /**
+     * @param file
+     *            the file to resolve
+     * @return the canonical file, or the absolute one if it can't be resolved
+     */
+    private static File getCanonicalFile(File file) {
+        File canonical;
+        try {
+            canonical = file.getCanonicalFile();
+        } catch (IOException e) {
+            canonical = file.getAbsoluteFile();
+        }
+        return canonical;
+    }
+
+    /**
+     * Forget the records of an installation.
+     *
+     * @param homeKey
+     *            the key of the installation in the records
+     */
+    private static void forget(String homeKey) {
+        String prefix = homeKey + '@';
+        for (String key : getRecords().stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                getRecords().remove(key);
+            }
+        }
+    }
+
+    /**
+     * @param home
+     *            the installation folder
+     * @return the key of the installation in the records
+     */
+    private static String getHomeKey(File home) {
+        return getCanonicalFile(home).getPath();
+    }
+
+    /**
+     * Computes the modification stamp of an installation from its folder and the folders updated with it.
+     *
+     * @param home
+     *            the installation folder
+     * @return the modification stamp
+     */
+    private static String getStamp(File home) {
+        StringBuilder stamp = new StringBuilder(Long.toString(home.lastModified()));
+        String[] updatedDirs = { "program", "MacOS" }; //$NON-NLS-1$ //$NON-NLS-2$
+        for (String updatedDir : updatedDirs) {
+            stamp.append(':').append(new File(home, updatedDir).lastModified());
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * @param files
+     *            the files to join
+     * @return the paths of the files separated by the platform path separator
+     */
+    private static String join(List<File> files) {
+        StringBuilder value = new StringBuilder();
+        for (File file : files) {
+            if (value.length() > 0) {
+                value.append(File.pathSeparatorChar);
+            }
+            value.append(file.getPath());
+        }
+        return value.toString();
+    }
+
+    /**
+     * @param value
+     *            the paths separated by the platform path separator, may be <code>null</code>
+     * @return the files
+     */
+    private static List<File> split(String value) {
+        List<File> files = new ArrayList<File>();
+        if (value != null && !value.isEmpty()) {
+            for (String path : value.split(File.pathSeparator)) {
+                files.add(new File(path));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the records, loaded from the plugin state location if needed
+     */
+    private static Properties getRecords() {
+        if (sRecords == null) {
+            sRecords = new Properties();
+            File file = getRecordsFile();
+            if (file != null && file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    sRecords.load(in);
+                } catch (IOException e) {
+                    PluginLogger.warning("Can't read the office layouts records", e); //$NON-NLS-1$
+                }
+            }
+        }
+        return sRecords;
+    }
+
+    /**
+     * Saves the records in the plugin state location.
+     */
+    private static void saveRecords() {
+        File file = getRecordsFile();
+        if (file != null) {
+            try (OutputStream out = new FileOutputStream(file)) {
+                sRecords.store(out, ""); //$NON-NLS-1$
+            } catch (IOException e) {
+                PluginLogger.warning("Can't save the office layouts records", e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * @return the file containing the records, or <code>null</code> if the plugin isn't running
+     */
+    private static File getRecordsFile() {
+        File file = null;
+        if (OOEclipsePlugin.getDefault() != null) {
+            file = OOEclipsePlugin.getDefault().getStateLocation().append(RECORDS_FILE).toFile();
+        }
+        return file;
+    }
+}
@@ -106,6 +106,39 @@ public class SDK implements ISdk, ITableElement {
         initialize(sdkHome, buildId);
     }
 
+    /**
+     * Creating a SDK instance restored from the saved configuration.
+     */
+    private SDK() {
+    }
+
+    /**
+     * Restores a SDK instance from the saved configuration without checking its installation.
+     *
+     * @param sdkHome
+     *            absolute path of the SDK root
+     * @param name
+     *            the SDK name
+     *
+     * @return the restored instance, to check later using {@link #validate()}
+     */
+    public static SDK restore(String sdkHome, String name) {
+        SDK sdk = new SDK();
+        sdk.mSdkHome = sdkHome;
+        sdk.mSdkName = name;
+        return sdk;
+    }
+
+    /**
+     * Checks that the SDK home directory contains the required files and directories.
+     *
+     * @throws InvalidConfigException
+     *             if the path doesn't points to a valid LibreOffice SDK installation directory.
+     */
+    public void validate() throws InvalidConfigException {
+        initialize(mSdkHome, mSdkName);
+    }
+
     // ----------------------------------------------------- ISdk Implementation
 
     /**
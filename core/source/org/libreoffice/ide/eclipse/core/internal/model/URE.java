@@ -37,6 +37,7 @@
 package org.libreoffice.ide.eclipse.core.internal.model;
 
 import java.io.File;
+import java.util.List;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -76,6 +77,29 @@ public class URE extends AbstractOOo {
         super(home, name);
     }
 
+    /**
+     * Creating a URE instance restored from the saved configuration.
+     */
+    private URE() {
+        super();
+    }
+
+    /**
+     * Restores a URE instance from the saved configuration without checking its installation.
+     *
+     * @param home
+     *            the URE home directory
+     * @param name
+     *            the URE name
+     *
+     * @return the restored instance, to check later using {@link #validate()}
+     */
+    public static URE restore(String home, String name) {
+        URE ure = new URE();
+        ure.restoreHome(home, name);
+        return ure;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -287,6 +311,15 @@ public class URE extends AbstractOOo {
      * {@inheritDoc}
      */
     @Override
-    public void updatePackage(File packageFile, IPath userInstallation) {
+    public boolean updatePackage(File packageFile, IPath userInstallation) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updatePackages(List<File> packageFiles, IPath userInstallation) {
+        return false;
     }
 }
@@ -40,10 +40,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -148,13 +153,18 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
     /**
      * The name of the file containing the UNO project configuration.
      */
-    private static final String CONFIG_FILE = ".unoproject"; //$NON-NLS-1$
+    public static final String CONFIG_FILE = ".unoproject"; //$NON-NLS-1$
 
     /**
      * The name of the META-INF/manifest.xml file.
      */
     private static final String MANIFEST_FILE = "META-INF/manifest.xml"; //$NON-NLS-1$
 
+    /**
+     * The build.properties key listing the workspace libraries of a Java project.
+     */
+    private static final String JAVA_CLASSPATH = "uno.java.classpath"; //$NON-NLS-1$
+
     private IProject mProject;
 
     private String mCompanyPrefix;
@@ -173,6 +183,8 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
 
     private IConfigListener mConfigListener;
 
+    private volatile ConfigSnapshot mConfig;
+
     /**
      * Listener for the configuration to handle the changes on SDK and OOo instances.
      *
@@ -610,8 +622,9 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
      * Reads a property from the UNO project configuration file.
      *
      * <p>
-     * Returns the property corresponding to the given name. If the configuration file doesn't exists, a default one
-     * will be created.
+     * Returns the property corresponding to the given name. The configuration file is only read once and kept in
+     * memory until {@link #reloadConfig()} detects a change on it. If the configuration file doesn't exists, a default
+     * one will be created.
      * </p>
      *
      * @param pPropertyName
@@ -622,32 +635,11 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
      */
     @Override
     public String getProperty(String pPropertyName) {
-
-        Properties properties = new Properties();
-        File configFile = getConfigFile();
-        String property = null;
-
-        FileInputStream in = null;
-        try {
-            // Create a default configuration file if needed
-            if (!configFile.exists()) {
-                UnoidlProjectHelper.createDefaultConfig(configFile);
-            }
-
-            in = new FileInputStream(configFile);
-            properties.load(in);
-            property = properties.getProperty(pPropertyName);
-        } catch (Exception e) {
-            String msg = Messages.getString("UnoidlProject.UnreadableConfigFileWarning"); //$NON-NLS-1$
-            PluginLogger.warning(MessageFormat.format(msg, CONFIG_FILE), e);
-        } finally {
-            try {
-                in.close();
-            } catch (IOException e) {
-            }
+        ConfigSnapshot config = mConfig;
+        if (config == null) {
+            config = loadConfig();
         }
-
-        return property;
+        return config.getValues().get(pPropertyName);
     }
 
     /**
@@ -660,11 +652,18 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
      */
     @Override
     public void setProperty(String name, String value) {
+        setProperties(Collections.singletonMap(name, value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setProperties(Map<String, String> values) {
         Properties properties = new Properties();
         File configFile = getConfigFile();
 
         FileInputStream in = null;
-        FileOutputStream out = null;
         try {
             // Create a default configuration file if needed
             if (!configFile.exists()) {
@@ -673,28 +672,78 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
 
             in = new FileInputStream(configFile);
             properties.load(in);
+            in.close();
 
-            properties.setProperty(name, value);
-
-            out = new FileOutputStream(configFile);
-            properties.store(out, Messages.getString("UnoidlProject.ConfigFileComment")); //$NON-NLS-1$
+            properties.putAll(values);
+            String comment = Messages.getString("UnoidlProject.ConfigFileComment"); //$NON-NLS-1$
+            storeProperties(properties, configFile, comment);
 
-            // Refresh the configuration file
-            getFile(CONFIG_FILE).refreshLocal(IResource.DEPTH_ZERO, null);
+            // Refresh the configuration file: the snapshot has to know the new modification stamp
+            IFile file = getFile(CONFIG_FILE);
+            file.refreshLocal(IResource.DEPTH_ZERO, null);
+            mConfig = new ConfigSnapshot(properties, file);
 
         } catch (Exception e) {
             String msg = Messages.getString("UnoidlProject.PropertyChangeError"); //$NON-NLS-1$
-            PluginLogger.warning(MessageFormat.format(msg, name, value), e);
+            PluginLogger.warning(MessageFormat.format(msg, values), e);
         } finally {
             try {
                 in.close();
-            } catch (IOException e) {
+            } catch (Exception e) {
             }
+        }
+    }
+
+    /**
+     * Forget the configuration kept in memory if the configuration file has been changed since it was read. This
+     * method is called by the {@link org.libreoffice.ide.eclipse.core.ResourceChangesHandler} when a resource delta
+     * touches the configuration file: only the deltas of our own writes keep the snapshot.
+     */
+    public void reloadConfig() {
+        ConfigSnapshot config = mConfig;
+        if (config != null && !config.isUpToDate(getFile(CONFIG_FILE))) {
+            mConfig = null;
+        }
+    }
+
+    /**
+     * Reads the UNO project configuration file into memory, creating a default one if needed.
+     *
+     * @return the configuration snapshot, empty if the file can't be read
+     */
+    private synchronized ConfigSnapshot loadConfig() {
+        ConfigSnapshot config = mConfig;
+        if (config == null) {
+            Properties properties = new Properties();
+            File configFile = getConfigFile();
+
+            // Take the stamp before reading: a change made meanwhile will drop the snapshot
+            IFile file = getFile(CONFIG_FILE);
+            long stamp = file.getModificationStamp();
+
+            FileInputStream in = null;
             try {
-                out.close();
-            } catch (IOException e) {
+                // Create a default configuration file if needed
+                if (!configFile.exists()) {
+                    UnoidlProjectHelper.createDefaultConfig(configFile);
+                }
+
+                in = new FileInputStream(configFile);
+                properties.load(in);
+            } catch (Exception e) {
+                String msg = Messages.getString("UnoidlProject.UnreadableConfigFileWarning"); //$NON-NLS-1$
+                PluginLogger.warning(MessageFormat.format(msg, CONFIG_FILE), e);
+            } finally {
+                try {
+                    in.close();
+                } catch (Exception e) {
+                }
             }
+
+            config = new ConfigSnapshot(properties, stamp);
+            mConfig = config;
         }
+        return config;
     }
 
     /**
@@ -731,10 +780,13 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
                                                       .map(IPath::makeRelative)
                                                       .map(IPath::toString)
                                                       .collect(Collectors.toList())); //$NON-NLS-1$
-        String msg = Messages.getString("UnoidlProject.SaveJavaBuildProperties"); //$NON-NLS-1$
-        PluginLogger.debug(MessageFormat.format(msg, buildFile.toString(), libs));
-        properties.put("uno.java.classpath", libs); //$NON-NLS-1$
-        saveBuildProperties(properties, buildFile);
+        // Don't rewrite the file when nothing changed to avoid useless resource changes
+        if (!libs.equals(properties.getProperty(JAVA_CLASSPATH))) {
+            String msg = Messages.getString("UnoidlProject.SaveJavaBuildProperties"); //$NON-NLS-1$
+            PluginLogger.debug(MessageFormat.format(msg, buildFile.toString(), libs));
+            properties.put(JAVA_CLASSPATH, libs);
+            saveBuildProperties(properties, buildFile);
+        }
     }
 
     /**
@@ -1074,45 +1126,48 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
      *
      */
     private void saveUnoProject() {
-        Properties properties = new Properties();
-        File configFile = getConfigFile();
+        Map<String, String> values = new HashMap<String, String>();
+        values.put(LANGUAGE, mLanguage.getName());
+        values.put(OOO_NAME, mOOo.getName());
+        values.put(SDK_NAME, mSdk.getName());
+        values.put(IDL_DIR, mIdlDir);
+        values.put(SRC_DIRECTORY, mSourcesDir);
+        values.put(COMPANY_PREFIX, mCompanyPrefix);
+        values.put(OUTPUT_EXT, mOutputExtension);
+        setProperties(values);
+    }
 
-        // Create a default configuration file if needed
-        if (!configFile.exists()) {
-            UnoidlProjectHelper.createDefaultConfig(configFile);
+    /**
+     * Writes a properties file as a whole.
+     *
+     * <p>
+     * The properties are first written to a temporary file in the same folder which then replaces the target file: a
+     * failed write never leaves a truncated file behind.
+     * </p>
+     *
+     * @param properties
+     *            the properties to write
+     * @param file
+     *            the file to replace
+     * @param comment
+     *            the comment to write at the top of the file
+     * @throws IOException
+     *             if the file can't be written
+     */
+    private static void storeProperties(Properties properties, File file, String comment) throws IOException {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+        FileOutputStream out = new FileOutputStream(tmpFile);
+        try {
+            properties.store(out, comment);
+        } finally {
+            out.close();
         }
 
-        FileInputStream in = null;
-        FileOutputStream out = null;
         try {
-            in = new FileInputStream(configFile);
-            properties.load(in);
-
-            properties.setProperty(LANGUAGE, mLanguage.getName());
-            properties.setProperty(OOO_NAME, mOOo.getName());
-            properties.setProperty(SDK_NAME, mSdk.getName());
-            properties.setProperty(IDL_DIR, mIdlDir);
-            properties.setProperty(SRC_DIRECTORY, mSourcesDir);
-            properties.setProperty(COMPANY_PREFIX, mCompanyPrefix);
-            properties.setProperty(OUTPUT_EXT, mOutputExtension);
-
-            out = new FileOutputStream(configFile);
-            properties.store(out, Messages.getString("UnoidlProject.ConfigFileComment")); //$NON-NLS-1$
-
-            // Refresh the configuration file
-            getFile(CONFIG_FILE).refreshLocal(IResource.DEPTH_ZERO, null);
-
-        } catch (Exception e) {
-            PluginLogger.warning(Messages.getString("UnoidlProject.ConfigFileError"), e); //$NON-NLS-1$
-        } finally {
-            try {
-                in.close();
-            } catch (Exception e) {
-            }
-            try {
-                out.close();
-            } catch (Exception e) {
-            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -1155,13 +1210,8 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
 
     private void saveBuildProperties(Properties properties, File buildFile) {
         // Save the build.properties file
-        FileWriter writer = null;
-
         try {
-            writer = new FileWriter(buildFile);
-            properties.store(writer, Messages.getString("UnoidlProject.BuildFileComment")); //$NON-NLS-1$
-            writer.close();
-
+            storeProperties(properties, buildFile, Messages.getString("UnoidlProject.BuildFileComment")); //$NON-NLS-1$
         } catch (IOException e) {
             PluginLogger.warning(Messages.getString("UnoidlProject.BuildFileError"), e); //$NON-NLS-1$
         }
@@ -1402,4 +1452,62 @@ public class UnoidlProject implements IUnoidlProject, IProjectNature {
         }
     }
 
+
+    /**
+     * Immutable copy of the UNO project configuration file content. The copy is stamped with the workspace
+     * modification stamp of the file, which changes with every refreshed change, unlike the file system time and
+     * size.
+     */
+    private static final class ConfigSnapshot {
+
+        private final Map<String, String> mValues;
+
+        private final long mStamp;
+
+        /**
+         * Creates a snapshot of the configuration file.
+         *
+         * @param properties
+         *            the properties read from or written to the file
+         * @param file
+         *            the configuration file, already refreshed
+         */
+        ConfigSnapshot(Properties properties, IFile file) {
+            this(properties, file.getModificationStamp());
+        }
+
+        /**
+         * Creates a snapshot of the configuration file.
+         *
+         * @param properties
+         *            the properties read from or written to the file
+         * @param stamp
+         *            the workspace modification stamp of the file when it was read
+         */
+        ConfigSnapshot(Properties properties, long stamp) {
+            Map<String, String> values = new HashMap<String, String>();
+            for (String key : properties.stringPropertyNames()) {
+                values.put(key, properties.getProperty(key));
+            }
+            mValues = Collections.unmodifiableMap(values);
+            mStamp = stamp;
+        }
+
+        /**
+         * @return the unmodifiable configuration values
+         */
+        Map<String, String> getValues() {
+            return mValues;
+        }
+
+        /**
+         * @param file
+         *            the configuration file
+         * @return <code>true</code> if the file hasn't changed since the snapshot was taken
+         */
+        boolean isUpToDate(IFile file) {
+            long stamp = file.getModificationStamp();
+            return stamp != IResource.NULL_STAMP && stamp == mStamp;
+        }
+    }
 }
@@ -0,0 +1,200 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.internal.office;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.deployment.DeploymentException;
+import com.sun.star.deployment.XExtensionManager;
+import com.sun.star.lib.uno.helper.WeakBase;
+import com.sun.star.task.XAbortChannel;
+import com.sun.star.task.XInteractionAbort;
+import com.sun.star.task.XInteractionApprove;
+import com.sun.star.task.XInteractionContinuation;
+import com.sun.star.task.XInteractionHandler;
+import com.sun.star.task.XInteractionRequest;
+import com.sun.star.ucb.XCommandEnvironment;
+import com.sun.star.ucb.XProgressHandler;
+import com.sun.star.uno.UnoRuntime;
+
+/**
+ * Deploys packages in an office through its extension manager, without running <code>unopkg</code>.
+ */
+public class ExtensionDeployer {
+
+    private static final String EXTENSION_MANAGER =
+        "/singletons/com.sun.star.deployment.ExtensionManager"; //$NON-NLS-1$
+
+    private static final String USER_REPOSITORY = "user"; //$NON-NLS-1$
+
+    private OfficeConnection mConnection;
+
+    /**
+     * Set the office connection to use to deploy the packages.
+     *
+     * @param connection
+     *            the office connection to use
+     */
+    public void setConnection(OfficeConnection connection) {
+        mConnection = connection;
+    }
+
+    /**
+     * Adds or replaces a package in the user extensions of the office.
+     *
+     * @param path
+     *            the OS dependent path of the package to deploy
+     *
+     * @return <code>null</code> if the package has been deployed, the description of the problems otherwise
+     */
+    public String deploy(String path) {
+        String error = null;
+        ApprovingCommandEnvironment cmdEnv = new ApprovingCommandEnvironment();
+        try {
+            Object singleton = mConnection.getContext().getValueByName(EXTENSION_MANAGER);
+            XExtensionManager manager = UnoRuntime.queryInterface(XExtensionManager.class, singleton);
+            XAbortChannel abortChannel = manager.createAbortChannel();
+
+            String url = mConnection.convertToUrl(path);
+            manager.addExtension(url, new PropertyValue[0], USER_REPOSITORY, abortChannel, cmdEnv);
+            PluginLogger.info("Package deployed in the running office: " + path); //$NON-NLS-1$
+        } catch (DeploymentException e) {
+            error = getMessage(e, e.Cause, cmdEnv.getProblems());
+        } catch (com.sun.star.uno.Exception e) {
+            error = getMessage(e, null, cmdEnv.getProblems());
+        } catch (com.sun.star.uno.RuntimeException e) {
+            error = getMessage(e, null, cmdEnv.getProblems());
+        }
+
+        if (error != null) {
+            PluginLogger.error(Messages.getString("ExtensionDeployer.ERROR_DEPLOY") + path); //$NON-NLS-1$
+        }
+        return error;
+    }
+
+    /**
+     * Builds the description of a deployment failure.
+     *
+     * @param exception
+     *            the exception thrown by the extension manager
+     * @param cause
+     *            the UNO cause of the exception, may be <code>null</code>
+     * @param problems
+     *            the problems reported to the interaction handler
+     *
+     * @return the failure description
+     */
+    private static String getMessage(Throwable exception, Object cause, List<String> problems) {
+        StringBuilder message = new StringBuilder(exception.getClass().getSimpleName());
+        message.append(": ").append(exception.getMessage()); //$NON-NLS-1$
+        if (cause instanceof Throwable) {
+            message.append("\n").append(((Throwable) cause).getMessage()); //$NON-NLS-1$
+        }
+        for (String problem : problems) {
+            message.append("\n").append(problem); //$NON-NLS-1$
+        }
+        return message.toString();
+    }
+
+    /**
+     * Command environment approving all the requests, like <code>unopkg add -s</code> would do. The requests which
+     * can't be approved are aborted and remembered as problems.
+     */
+    private static class ApprovingCommandEnvironment extends WeakBase
+        implements XCommandEnvironment, XInteractionHandler {
+
+        private List<String> mProblems = new ArrayList<>();
+
+        /**
+         * @return the descriptions of the requests which couldn't be approved
+         */
+        public List<String> getProblems() {
+            return mProblems;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public XInteractionHandler getInteractionHandler() {
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public XProgressHandler getProgressHandler() {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handle(XInteractionRequest request) {
+            XInteractionApprove approve = null;
+            XInteractionAbort abort = null;
+            for (XInteractionContinuation continuation : request.getContinuations()) {
+                if (approve == null) {
+                    approve = UnoRuntime.queryInterface(XInteractionApprove.class, continuation);
+                }
+                if (abort == null) {
+                    abort = UnoRuntime.queryInterface(XInteractionAbort.class, continuation);
+                }
+            }
+
+            if (approve != null) {
+                approve.select();
+            } else {
+                Object problem = request.getRequest();
+                if (problem instanceof Throwable) {
+                    mProblems.add(((Throwable) problem).getMessage());
+                } else {
+                    mProblems.add(String.valueOf(problem));
+                }
+                if (abort != null) {
+                    abort.select();
+                }
+            }
+        }
+    }
+}
@@ -42,9 +42,17 @@ import java.net.URL;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
 
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.beans.XPropertySet;
+import com.sun.star.bridge.XBridge;
+import com.sun.star.bridge.XBridgeFactory;
 import com.sun.star.comp.helper.Bootstrap;
 import com.sun.star.comp.helper.BootstrapException;
+import com.sun.star.connection.XConnection;
+import com.sun.star.connection.XConnector;
+import com.sun.star.frame.XComponentLoader;
 import com.sun.star.frame.XDesktop;
+import com.sun.star.lang.XComponent;
 import com.sun.star.lang.XMultiComponentFactory;
 import com.sun.star.uno.UnoRuntime;
 import com.sun.star.uno.XComponentContext;
@@ -58,6 +66,7 @@ public class OfficeConnection {
 
     private IOOo mOOo;
     private XComponentContext mContext;
+    private XComponent mBridgeComponent;
 
     /**
      * Creates a connection representation for a given office.
@@ -94,6 +103,81 @@ public class OfficeConnection {
         PluginLogger.info("Office bootstrapped"); //$NON-NLS-1$
     }
 
+    /**
+     * Connects to an office already running and accepting UNO connections.
+     *
+     * @param connectionString
+     *            the connection description, for example <code>pipe,name=foo</code>
+     *
+     * @throws Exception
+     *             if the office can't be reached
+     */
+    public void connect(String connectionString) throws Exception {
+        XComponentContext localContext = Bootstrap.createInitialComponentContext(null);
+        XMultiComponentFactory localServiceManager = localContext.getServiceManager();
+        XConnector connector = UnoRuntime.queryInterface(XConnector.class,
+            localServiceManager.createInstanceWithContext("com.sun.star.connection.Connector", //$NON-NLS-1$
+                localContext));
+        XConnection connection = connector.connect(connectionString);
+        XBridgeFactory bridgeFactory = UnoRuntime.queryInterface(XBridgeFactory.class,
+            localServiceManager.createInstanceWithContext("com.sun.star.bridge.BridgeFactory", //$NON-NLS-1$
+                localContext));
+        XBridge bridge = bridgeFactory.createBridge("", "urp", connection, null); //$NON-NLS-1$ //$NON-NLS-2$
+        mBridgeComponent = UnoRuntime.queryInterface(XComponent.class, bridge);
+
+        XMultiComponentFactory serviceManager = UnoRuntime.queryInterface(XMultiComponentFactory.class,
+            bridge.getInstance("StarOffice.ServiceManager")); //$NON-NLS-1$
+        XPropertySet properties = UnoRuntime.queryInterface(XPropertySet.class, serviceManager);
+        mContext = UnoRuntime.queryInterface(XComponentContext.class,
+            properties.getPropertyValue("DefaultContext")); //$NON-NLS-1$
+        PluginLogger.info("Connected to office: " + connectionString); //$NON-NLS-1$
+    }
+
+    /**
+     * @return <code>true</code> if the connection to the office is still usable
+     */
+    public boolean isConnected() {
+        boolean connected = mContext != null;
+        if (connected) {
+            try {
+                connected = mContext.getServiceManager() != null;
+            } catch (com.sun.star.uno.RuntimeException e) {
+                // The bridge has been disposed, most probably because the office has been closed
+                connected = false;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Opens a new text document in the office: this shows a window in an office started invisible.
+     *
+     * @throws Exception
+     *             if the document can't be opened
+     */
+    public void openDocument() throws Exception {
+        XMultiComponentFactory xMngr = mContext.getServiceManager();
+        Object oDesktop = xMngr.createInstanceWithContext("com.sun.star.frame.Desktop", mContext); //$NON-NLS-1$
+        XComponentLoader loader = UnoRuntime.queryInterface(XComponentLoader.class, oDesktop);
+        loader.loadComponentFromURL("private:factory/swriter", "_blank", 0, //$NON-NLS-1$ //$NON-NLS-2$
+            new PropertyValue[0]);
+    }
+
+    /**
+     * Closes the connection to the office without stopping it.
+     */
+    public void disconnect() {
+        if (mBridgeComponent != null) {
+            try {
+                mBridgeComponent.dispose();
+            } catch (com.sun.star.uno.RuntimeException e) {
+                // Already disposed
+            }
+            mBridgeComponent = null;
+        }
+        mContext = null;
+    }
+
     /**
      * Stops the office if it is running.
      */
@@ -137,12 +137,18 @@ public class TypesGetter {
     public Map<String, List<InternalUnoType>> getTypes(String root, Integer mask) throws Throwable {
         Map<String, List<InternalUnoType>> types = new HashMap<>();
 
-        mConnection.startOffice();
+        // Only stop the office if it has been started for this query
+        boolean started = !mConnection.isConnected();
+        if (started) {
+            mConnection.startOffice();
+        }
 
         initialize(root, mask);
         types = queryTypes();
 
-        mConnection.stopOffice();
+        if (started) {
+            mConnection.stopOffice();
+        }
 
         return types;
     }
@@ -0,0 +1,123 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.internal.office;
+
+import java.util.Arrays;
+
+import com.sun.star.comp.helper.Bootstrap;
+import com.sun.star.comp.loader.JavaLoader;
+import com.sun.star.lang.XComponent;
+import com.sun.star.lang.XMain;
+import com.sun.star.lang.XSingleComponentFactory;
+import com.sun.star.lang.XSingleServiceFactory;
+import com.sun.star.uno.UnoRuntime;
+import com.sun.star.uno.XComponentContext;
+
+/**
+ * Runs a Java <code>XMain</code> implementation in the current JVM, like the <code>uno</code> executable would do but
+ * without starting it and its JVM through <code>javaldx</code>.
+ *
+ * <p>
+ * This class is the main class of the launched JVM, it isn't used by the plugin itself. The arguments are the
+ * implementation name, the URL of the jar containing it and then the application arguments.
+ * </p>
+ */
+public class UreMainRunner {
+
+    private static final int RUNNER_ARGS = 2;
+
+    /**
+     * Bootstraps the URE, activates the implementation and runs it.
+     *
+     * @param args
+     *            the implementation name, the component jar URL and the application arguments
+     *
+     * @throws Exception
+     *             if the implementation can't be created
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < RUNNER_ARGS) {
+            exit("Usage: UreMainRunner implementation jarUrl [args...]"); //$NON-NLS-1$
+        }
+
+        // The URE_BOOTSTRAP variable points to the unorc file
+        XComponentContext context = Bootstrap.defaultBootstrap_InitialComponentContext();
+
+        // Use the Java loader directly: the native one would start an other JVM
+        JavaLoader loader = new JavaLoader();
+        loader.initialize(new Object[] { context.getServiceManager() });
+        Object factory = loader.activate(args[0], null, args[1], null);
+
+        if (factory == null) {
+            exit("No implementation " + args[0] + " in " + args[1]); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        Object instance = null;
+        XSingleComponentFactory componentFactory = UnoRuntime.queryInterface(XSingleComponentFactory.class, factory);
+        XSingleServiceFactory serviceFactory = UnoRuntime.queryInterface(XSingleServiceFactory.class, factory);
+        if (componentFactory != null) {
+            instance = componentFactory.createInstanceWithContext(context);
+        } else if (serviceFactory != null) {
+            instance = serviceFactory.createInstance();
+        } else {
+            exit("The factory of " + args[0] + " can't create instances"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        XMain main = UnoRuntime.queryInterface(XMain.class, instance);
+        if (main == null) {
+            exit(args[0] + " doesn't implement com.sun.star.lang.XMain"); //$NON-NLS-1$
+        }
+        int result = main.run(Arrays.copyOfRange(args, RUNNER_ARGS, args.length));
+
+        XComponent component = UnoRuntime.queryInterface(XComponent.class, context);
+        if (component != null) {
+            component.dispose();
+        }
+        System.exit(result);
+    }
+
+    /**
+     * Reports a wrong invocation and stops the JVM.
+     *
+     * @param message
+     *            the error to print
+     */
+    private static void exit(String message) {
+        System.err.println(message);
+        System.exit(1);
+    }
+}
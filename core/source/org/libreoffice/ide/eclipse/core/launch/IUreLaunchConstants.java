@@ -44,5 +44,6 @@ public interface IUreLaunchConstants {
     String PROJECT_NAME = "project_name"; //$NON-NLS-1$
     String MAIN_TYPE = "main_type"; //$NON-NLS-1$
     String PROGRAM_ARGS = "program_args"; //$NON-NLS-1$
+    String RUN_IN_JVM = "run_in_jvm"; //$NON-NLS-1$
 
 }
@@ -78,15 +78,22 @@ public class UreLaunchDelegate extends LaunchConfigurationDelegate {
         String prjName = configuration.getAttribute(IUreLaunchConstants.PROJECT_NAME, ""); //$NON-NLS-1$
         String mainName = configuration.getAttribute(IUreLaunchConstants.MAIN_TYPE, ""); //$NON-NLS-1$
         String args = configuration.getAttribute(IUreLaunchConstants.PROGRAM_ARGS, ""); //$NON-NLS-1$
+        boolean runInJvm = configuration.getAttribute(IUreLaunchConstants.RUN_IN_JVM, false);
 
-        IUnoidlProject prj = ProjectsManager.getProject(prjName);
+        IUnoidlProject prj = ProjectsManager.waitForProject(prjName);
         if (prj != null) {
             try {
                 ILanguageBuilder langBuilder = prj.getLanguage().getLanguageBuilder();
                 langBuilder.createLibrary(prj);
 
-                // Run the URE Applicaton using IOOo.runUno()
-                prj.getOOo().runUno(prj, mainName, args, launch, monitor);
+                // Only the Java implementations packaged in a jar can skip the uno executable
+                String library = prj.getLanguage().getProjectHandler().getLibraryPath(prj);
+                if (runInJvm && library.endsWith(".jar")) { //$NON-NLS-1$
+                    prj.getOOo().runUnoInJvm(prj, mainName, args, launch, monitor);
+                } else {
+                    // Run the URE Applicaton using IOOo.runUno()
+                    prj.getOOo().runUno(prj, mainName, args, launch, monitor);
+                }
             } catch (Exception e) {
                 Display.getDefault().asyncExec(new Runnable() {
 
@@ -123,6 +123,9 @@ public class UreTab extends AbstractLaunchConfigurationTab {
                     setDirty(true);
                     getLaunchConfigurationDialog().updateButtons();
                 }
+            } else if (event.getSource().equals(mRunInJvmBtn)) {
+                setDirty(true);
+                getLaunchConfigurationDialog().updateButtons();
             }
         }
 
@@ -157,6 +160,7 @@ public class UreTab extends AbstractLaunchConfigurationTab {
     private Text mMainTxt;
     private Button mMainBtn;
     private Text mArgumentsTxt;
+    private Button mRunInJvmBtn;
 
     private ChangeListener mListener = new ChangeListener();
 
@@ -179,6 +183,10 @@ public class UreTab extends AbstractLaunchConfigurationTab {
 
         createMainField(group);
 
+        mRunInJvmBtn = new Button(group, SWT.CHECK);
+        mRunInJvmBtn.setText(Messages.getString("UreTab.RunInJvmLabel")); //$NON-NLS-1$
+        mRunInJvmBtn.addSelectionListener(mListener);
+
         Group argGroup = new Group(comp, SWT.NONE);
         argGroup.setText(Messages.getString("UreTab.ApplicationArgsLabel")); //$NON-NLS-1$
         argGroup.setLayout(new GridLayout());
@@ -216,6 +224,7 @@ public class UreTab extends AbstractLaunchConfigurationTab {
             mProjectTxt.setText(configuration.getAttribute(IUreLaunchConstants.PROJECT_NAME, "")); //$NON-NLS-1$
             mMainTxt.setText(configuration.getAttribute(IUreLaunchConstants.MAIN_TYPE, "")); //$NON-NLS-1$
             mArgumentsTxt.setText(configuration.getAttribute(IUreLaunchConstants.PROGRAM_ARGS, "")); //$NON-NLS-1$
+            mRunInJvmBtn.setSelection(configuration.getAttribute(IUreLaunchConstants.RUN_IN_JVM, false));
         } catch (CoreException e) {
             PluginLogger.error(Messages.getString("UreTab.ConfigurationError"), e); //$NON-NLS-1$
         }
@@ -230,6 +239,7 @@ public class UreTab extends AbstractLaunchConfigurationTab {
         configuration.setAttribute(IUreLaunchConstants.PROJECT_NAME, mProjectTxt.getText().trim());
         configuration.setAttribute(IUreLaunchConstants.MAIN_TYPE, mMainTxt.getText().trim());
         configuration.setAttribute(IUreLaunchConstants.PROGRAM_ARGS, mArgumentsTxt.getText().trim());
+        configuration.setAttribute(IUreLaunchConstants.RUN_IN_JVM, mRunInJvmBtn.getSelection());
     }
 
     /**
@@ -0,0 +1,450 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.launch.office;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+
+/**
+ * Remembers the last package deployed for each project, LibreOffice instance and user profile.
+ *
+ * <p>
+ * Two digests are recorded for each deployment:
+ * </p>
+ * <ul>
+ * <li>a digest of the project sources, computed from the path and modification stamp of each resource except the
+ * derived and generated ones. The resources of the referenced projects, which may provide libraries to the package,
+ * are digested too. When it didn't change since the last deployment, the package doesn't need to be rebuilt;</li>
+ * <li>a digest of the package content, computed from the name, size and CRC of each entry of the package. When a
+ * rebuilt package has the same digest than the deployed one, it doesn't need to be deployed again.</li>
+ * </ul>
+ *
+ * <p>
+ * The workspace isn't refreshed to compute the sources digest: if one of the digested resources isn't in sync with
+ * the file system, the package is considered as changed.
+ * </p>
+ *
+ * <p>
+ * The records are saved in the plugin state location to survive the workbench restarts.
+ * </p>
+ */
+public class DeployedPackages {
+
+    private static final String RECORDS_FILE = ".deployed_packages"; //$NON-NLS-1$
+
+    private static final String SOURCES_SUFFIX = ".sources"; //$NON-NLS-1$
+
+    private static final String PACKAGE_SUFFIX = ".package"; //$NON-NLS-1$
+
+    private static final String DIGEST_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+    private static Properties sRecords;
+
+    /**
+     * Checks whether the package of a project is still deployed and up to date.
+     *
+     * @param prj
+     *            the project to check
+     * @param ooo
+     *            the office in which the package is deployed
+     * @param userInstallation
+     *            the user profile used by the office, or <code>null</code> for the default one
+     * @param packageFile
+     *            the package file built for the project
+     *
+     * @return <code>true</code> if neither the sources nor the package changed since the last deployment
+     */
+    public static synchronized boolean isUpToDate(IUnoidlProject prj, IOOo ooo, IPath userInstallation,
+        File packageFile) {
+        boolean upToDate = false;
+        String key = getKey(prj, ooo, userInstallation);
+        String sources = getRecords().getProperty(key + SOURCES_SUFFIX);
+        String pack = getRecords().getProperty(key + PACKAGE_SUFFIX);
+
+        if (sources != null && pack != null && isProfileCreated(userInstallation) && packageFile.isFile()) {
+            upToDate = sources.equals(computeSourcesDigest(prj)) && pack.equals(computePackageDigest(packageFile));
+        }
+        return upToDate;
+    }
+
+    /**
+     * Checks whether a package with the same content has already been deployed.
+     *
+     * @param prj
+     *            the project of the package
+     * @param ooo
+     *            the office in which the package is deployed
+     * @param userInstallation
+     *            the user profile used by the office, or <code>null</code> for the default one
+     * @param packageFile
+     *            the package file built for the project
+     *
+     * @return <code>true</code> if the same package content is already deployed
+     */
+    public static synchronized boolean isDeployed(IUnoidlProject prj, IOOo ooo, IPath userInstallation,
+        File packageFile) {
+        String pack = getRecords().getProperty(getKey(prj, ooo, userInstallation) + PACKAGE_SUFFIX);
+        return pack != null && isProfileCreated(userInstallation) && pack.equals(computePackageDigest(packageFile));
+    }
+
+    /**
+     * Records the package of a project as deployed.
+     *
+     * <p>
+     * This method has to be called once the package is built and deployed: the sources digest then includes the
+     * files written by the build.
+     * </p>
+     *
+     * @param prj
+     *            the project of the package
+     * @param ooo
+     *            the office in which the package is deployed
+     * @param userInstallation
+     *            the user profile used by the office, or <code>null</code> for the default one
+     * @param packageFile
+     *            the deployed package file
+     */
+    public static synchronized void record(IUnoidlProject prj, IOOo ooo, IPath userInstallation, File packageFile) {
+        String key = getKey(prj, ooo, userInstallation);
+        String sources = computeSourcesDigest(prj);
+        String pack = computePackageDigest(packageFile);
+        if (sources != null && pack != null) {
+            getRecords().setProperty(key + SOURCES_SUFFIX, sources);
+            getRecords().setProperty(key + PACKAGE_SUFFIX, pack);
+        } else {
+            getRecords().remove(key + SOURCES_SUFFIX);
+            getRecords().remove(key + PACKAGE_SUFFIX);
+        }
+        saveRecords();
+    }
+
+    /**
+     * Forgets all the packages deployed in a user profile of an office, for example because an other package has
+     * been deployed there.
+     *
+     * @param ooo
+     *            the office in which the packages have been deployed
+     * @param userInstallation
+     *            the user profile used by the office, or <code>null</code> for the default one
+     */
+    public static synchronized void invalidate(IOOo ooo, IPath userInstallation) {
+        String suffix = getKeySuffix(ooo, userInstallation);
+        boolean removed = getRecords().keySet().removeIf(key -> {
+            String name = (String) key;
+            return name.endsWith(suffix + SOURCES_SUFFIX) || name.endsWith(suffix + PACKAGE_SUFFIX);
+        });
+        if (removed) {
+            saveRecords();
+        }
+    }
+
+    /**
+     * A wiped user profile doesn't contain the deployed packages anymore.
+     *
+     * @param userInstallation
+     *            the user profile used by the office, or <code>null</code> for the default one
+     *
+     * @return <code>true</code> if the user profile has been created by the office
+     */
+    private static boolean isProfileCreated(IPath userInstallation) {
+        boolean created = true;
+        if (userInstallation != null) {
+            created = userInstallation.append("user").toFile().isDirectory(); //$NON-NLS-1$
+        }
+        return created;
+    }
+
+    /**
+     * Computes the digest of the project sources.
+     *
+     * @param prj
+     *            the project to digest
+     *
+     * @return the hexadecimal digest or <code>null</code> if the project couldn't be visited or isn't in sync with
+     *         the file system
+     */
+    private static String computeSourcesDigest(IUnoidlProject prj) {
+        String digest = null;
+        try {
+            MessageDigest md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            if (digestProject(prj.getProject(), getIgnoredPaths(prj), md, new HashSet<IProject>())) {
+                digest = HexFormat.of().formatHex(md.digest());
+            }
+        } catch (CoreException | NoSuchAlgorithmException e) {
+            PluginLogger.warning("Can't compute the sources digest of project " + prj.getName(), e); //$NON-NLS-1$
+        }
+        return digest;
+    }
+
+    /**
+     * Adds the sources of a project and of the projects it references to a digest.
+     *
+     * <p>
+     * The generated folders and files are ignored, as well as the user profile used by the office which is located
+     * in the distribution folder. Only the digested resources are checked to be in sync with the file system: the
+     * build and the office write in the ignored folders without refreshing them.
+     * </p>
+     *
+     * @param project
+     *            the project to digest
+     * @param ignored
+     *            the project relative paths of the generated folders
+     * @param md
+     *            the digest to update
+     * @param visited
+     *            the projects already digested
+     *
+     * @return <code>false</code> if one of the digested resources isn't in sync with the file system
+     *
+     * @throws CoreException
+     *             if a project can't be visited
+     */
+    private static boolean digestProject(IProject project, final IPath[] ignored, final MessageDigest md,
+        Set<IProject> visited) throws CoreException {
+        final boolean[] synced = new boolean[] { true };
+        if (visited.add(project)) {
+            if (!project.isAccessible()) {
+                // Opening the project will change the digest
+                md.update((project.getName() + ":closed").getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+            } else {
+                project.accept((IResourceProxy proxy) -> {
+                    IResource res = proxy.requestResource();
+                    boolean visitChildren = synced[0] && !proxy.isDerived()
+                        && !isIgnored(res.getProjectRelativePath(), ignored);
+                    if (visitChildren) {
+                        synced[0] = isSynchronized(res, ignored);
+                    }
+                    if (visitChildren && proxy.getType() == IResource.FILE) {
+                        String entry = proxy.requestFullPath().toPortableString() + ':' + proxy.getModificationStamp();
+                        md.update(entry.getBytes(StandardCharsets.UTF_8));
+                    }
+                    return visitChildren;
+                }, IResource.NONE);
+
+                for (IProject referenced : project.getReferencedProjects()) {
+                    IUnoidlProject prj = ProjectsManager.getProject(referenced.getName());
+                    synced[0] &= digestProject(referenced, getIgnoredPaths(prj), md, visited);
+                }
+            }
+        }
+        return synced[0];
+    }
+
+    /**
+     * Checks that a digested resource is in sync with the file system.
+     *
+     * <p>
+     * The children of a folder are visited and checked on their own, but the files created on the file system
+     * without refreshing the folder have to be looked for. This isn't done for the folders containing a generated
+     * folder: the build and the office write in the generated folders without refreshing them.
+     * </p>
+     *
+     * @param res
+     *            the resource to check
+     * @param ignored
+     *            the project relative paths of the generated folders
+     *
+     * @return <code>true</code> if the resource is in sync with the file system
+     */
+    private static boolean isSynchronized(IResource res, IPath[] ignored) {
+        int depth = IResource.DEPTH_ZERO;
+        if (res.getType() != IResource.FILE) {
+            depth = IResource.DEPTH_ONE;
+            for (int i = 0; i < ignored.length && depth == IResource.DEPTH_ONE; i++) {
+                if (ignored[i].removeLastSegments(1).equals(res.getProjectRelativePath())) {
+                    depth = IResource.DEPTH_ZERO;
+                }
+            }
+        }
+        return res.isSynchronized(depth);
+    }
+
+    /**
+     * @param path
+     *            the project relative path of a resource
+     * @param ignored
+     *            the project relative paths of the generated folders
+     *
+     * @return <code>true</code> if the resource is one of the generated folders
+     */
+    private static boolean isIgnored(IPath path, IPath[] ignored) {
+        boolean found = false;
+        for (int i = 0; i < ignored.length && !found; i++) {
+            found = ignored[i].equals(path);
+        }
+        return found;
+    }
+
+    /**
+     * @param prj
+     *            the project to digest, or <code>null</code> if it isn't a UNO project
+     *
+     * @return the project relative paths of the generated folders, empty if the project isn't a UNO project
+     */
+    private static IPath[] getIgnoredPaths(IUnoidlProject prj) {
+        IPath[] ignored = new IPath[0];
+        if (prj != null) {
+            ignored = new IPath[] {
+                prj.getDistPath(),
+                prj.getBuildPath(),
+                prj.getUrdPath(),
+                prj.getTypesPath()
+            };
+        }
+        return ignored;
+    }
+
+    /**
+     * Computes the digest of the package content.
+     *
+     * <p>
+     * Only the entries names, sizes and CRC are used: the timestamps of the entries change at each build.
+     * </p>
+     *
+     * @param packageFile
+     *            the package to digest
+     *
+     * @return the hexadecimal digest or <code>null</code> if the package couldn't be read
+     */
+    private static String computePackageDigest(File packageFile) {
+        String digest = null;
+        try (ZipFile zip = new ZipFile(packageFile)) {
+            MessageDigest md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String line = entry.getName() + ':' + entry.getSize() + ':' + entry.getCrc();
+                md.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            digest = HexFormat.of().formatHex(md.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            PluginLogger.debug("Can't compute the digest of package " + packageFile); //$NON-NLS-1$
+        }
+        return digest;
+    }
+
+    /**
+     * @param prj
+     *            the deployed project
+     * @param ooo
+     *            the office in which the package is deployed
+     * @param userInstallation
+     *            the user profile, or <code>null</code>
+     *
+     * @return the key of the project records
+     */
+    private static String getKey(IUnoidlProject prj, IOOo ooo, IPath userInstallation) {
+        return prj.getName() + getKeySuffix(ooo, userInstallation);
+    }
+
+    /**
+     * @param ooo
+     *            the office
+     * @param userInstallation
+     *            the user profile, or <code>null</code>
+     *
+     * @return the part of the records keys depending on the office and user profile
+     */
+    private static String getKeySuffix(IOOo ooo, IPath userInstallation) {
+        String profile = ""; //$NON-NLS-1$
+        if (userInstallation != null) {
+            profile = userInstallation.toPortableString();
+        }
+        return '@' + ooo.getHome() + '@' + profile;
+    }
+
+    /**
+     * @return the records, loaded from the plugin state location if needed
+     */
+    private static Properties getRecords() {
+        if (sRecords == null) {
+            sRecords = new Properties();
+            File file = getRecordsFile();
+            if (file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    sRecords.load(in);
+                } catch (IOException e) {
+                    PluginLogger.warning("Can't read the deployed packages records", e); //$NON-NLS-1$
+                }
+            }
+        }
+        return sRecords;
+    }
+
+    /**
+     * Saves the records in the plugin state location.
+     */
+    private static void saveRecords() {
+        try (OutputStream out = new FileOutputStream(getRecordsFile())) {
+            sRecords.store(out, ""); //$NON-NLS-1$
+        } catch (IOException e) {
+            PluginLogger.warning("Can't save the deployed packages records", e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return the file containing the records
+     */
+    private static File getRecordsFile() {
+        return OOEclipsePlugin.getDefault().getStateLocation().append(RECORDS_FILE).toFile();
+    }
+}
@@ -39,6 +39,8 @@ public interface IOfficeLaunchConstants {
 
     String PROJECT_NAME = OOEclipsePlugin.OOECLIPSE_PLUGIN_ID + ".PROJECT_ATTR";
     String CLEAN_USER_INSTALLATION = OOEclipsePlugin.OOECLIPSE_PLUGIN_ID + ".USE_CLEAN_USER_INSTALLATION_ATTR";
+    String LIVE_DEPLOYMENT = OOEclipsePlugin.OOECLIPSE_PLUGIN_ID + ".LIVE_DEPLOYMENT_ATTR";
+    String ADDITIONAL_PROJECTS = OOEclipsePlugin.OOECLIPSE_PLUGIN_ID + ".ADDITIONAL_PROJECTS_ATTR";
     String CONTENT_PATHS = OOEclipsePlugin.OOECLIPSE_PLUGIN_ID + ".PACKAGE_CONTENT_PATHS";
     String PATHS_SEPARATOR = ":";
 
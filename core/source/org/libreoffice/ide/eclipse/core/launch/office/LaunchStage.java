@@ -0,0 +1,139 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.launch.office;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * A step of an office launch. The steps run as jobs so that the independent ones overlap, and so that each
+ * of them reports its own progress and can be canceled with the launch.
+ */
+abstract class LaunchStage extends Job {
+
+    private Exception mError;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *            the stage name shown in the progress view
+     */
+    LaunchStage(String name) {
+        super(name);
+        setPriority(Job.LONG);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        IStatus status = Status.OK_STATUS;
+        try {
+            runStage(monitor);
+        } catch (OperationCanceledException e) {
+            status = Status.CANCEL_STATUS;
+        } catch (Exception e) {
+            mError = e;
+        } finally {
+            monitor.done();
+        }
+        return status;
+    }
+
+    /**
+     * Does the work of the stage.
+     *
+     * @param monitor
+     *            the stage progress monitor
+     *
+     * @throws Exception
+     *             if the stage failed: the error is rethrown by {@link #await(IProgressMonitor)}
+     */
+    protected abstract void runStage(IProgressMonitor monitor) throws Exception;
+
+    /**
+     * Waits for the end of the stage.
+     *
+     * @param monitor
+     *            the launch monitor: canceling it cancels the stage
+     *
+     * @throws Exception
+     *             the error of the stage, or {@link OperationCanceledException} if the stage or the launch
+     *             have been canceled
+     */
+    void await(IProgressMonitor monitor) throws Exception {
+        try {
+            join(0, monitor);
+        } catch (OperationCanceledException e) {
+            cancel();
+            throw e;
+        }
+
+        if (mError != null) {
+            throw mError;
+        }
+        IStatus result = getResult();
+        if (result != null && result.getSeverity() == IStatus.CANCEL) {
+            throw new OperationCanceledException();
+        }
+    }
+
+    /**
+     * Cancels the stage after a failed or canceled launch. The stages holding resources which are only useful to a
+     * successful launch release them here.
+     */
+    void abort() {
+        cancel();
+    }
+
+    /**
+     * Stops the stage if the launch has been canceled.
+     *
+     * @param monitor
+     *            the stage progress monitor
+     */
+    protected static void checkCanceled(IProgressMonitor monitor) {
+        if (monitor.isCanceled()) {
+            throw new OperationCanceledException();
+        }
+    }
+}
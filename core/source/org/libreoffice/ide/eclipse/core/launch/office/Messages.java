@@ -39,6 +39,14 @@ public class Messages extends NLS {
 
     public static String OfficeLaunchDelegate_LaunchError;
     public static String OfficeLaunchDelegate_LaunchErrorTitle;
+    public static String OfficeLaunchDelegate_ProcessName;
+    public static String OfficeLaunchDelegate_PrepareStage;
+    public static String OfficeLaunchDelegate_BuildStage;
+    public static String OfficeLaunchDelegate_DeployStage;
+    public static String OfficeLaunchDelegate_DeployError;
+    public static String OfficeLaunchDelegate_ProfileTask;
+    public static String OfficeLaunchDelegate_StartTask;
+    public static String OfficeLaunchDelegate_ExportTask;
     public static String OfficeTab_Options;
     public static String OfficeTab_Configurationerror;
     public static String OfficeTab_ProjectNameLabel;
@@ -46,8 +54,13 @@ public class Messages extends NLS {
     public static String OfficeTab_UnoProject;
     public static String OfficeTab_ChkUseCleanUserInstallation;
     public static String OfficeTab_ChkUseCleanUserInstallation_ToolTip;
+    public static String OfficeTab_ChkLiveDeployment;
+    public static String OfficeTab_ChkLiveDeployment_ToolTip;
     public static String OfficeTab_ProjectChooserTitle;
     public static String OfficeTab_ProjectChooserMessage;
+    public static String OfficeTab_AdditionalProjectsLabel;
+    public static String OfficeTab_AdditionalProjectsToolTip;
+    public static String OfficeTab_AdditionalProjectsChooserMessage;
 
     private static final String BUNDLE_NAME = "org.libreoffice.ide.eclipse.core.launch.office.messages"; //$NON-NLS-1$
 
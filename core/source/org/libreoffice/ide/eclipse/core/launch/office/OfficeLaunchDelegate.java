@@ -32,7 +32,11 @@ package org.libreoffice.ide.eclipse.core.launch.office;
 
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -42,13 +46,19 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.model.IProcess;
 import org.eclipse.debug.core.model.LaunchConfigurationDelegate;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Display;
+import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.builders.TypesBuilder;
 import org.libreoffice.ide.eclipse.core.gui.PackageContentSelector;
@@ -57,6 +67,10 @@ import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
 import org.libreoffice.ide.eclipse.core.model.config.NullExtraOptionsProvider;
 import org.libreoffice.ide.eclipse.core.model.pack.PackagePropertiesModel;
+import org.libreoffice.ide.eclipse.core.office.LiveOffice;
+import org.libreoffice.ide.eclipse.core.office.OfficeLease;
+import org.libreoffice.ide.eclipse.core.office.OfficePool;
+import org.libreoffice.ide.eclipse.core.office.ProfileTemplates;
 import org.libreoffice.plugin.core.model.UnoPackage;
 
 /**
@@ -65,9 +79,12 @@ import org.libreoffice.plugin.core.model.UnoPackage;
 public class OfficeLaunchDelegate extends LaunchConfigurationDelegate {
 
     /**
-     * Export the .oxt file, deploy it in LibreOffice, run LibreOffice.
+     * Build and export, deploy, run LibreOffice, plus the wait for the office preparation.
      */
-    private static final int TASK_UNITS = 3;
+    private static final int TASK_UNITS = 10;
+    private static final int BUILD_UNITS = 4;
+    private static final int DEPLOY_UNITS = 3;
+    private static final int PREPARE_UNITS = 2;
 
     /**
      * {@inheritDoc}
@@ -75,25 +92,25 @@ public class OfficeLaunchDelegate extends LaunchConfigurationDelegate {
     @Override
     public void launch(ILaunchConfiguration configuration, String mode, ILaunch launch, IProgressMonitor monitor)
         throws CoreException {
-        if (monitor == null) {
-            monitor = new NullProgressMonitor();
-        }
+        SubMonitor progress = SubMonitor.convert(monitor, MessageFormat.format("{0}...", //$NON-NLS-1$
+            new Object[] { configuration.getName() }), TASK_UNITS);
 
         try {
-            monitor.beginTask(MessageFormat.format("{0}...", //$NON-NLS-1$
-                new Object[] { configuration.getName() }), TASK_UNITS);
             // check for cancellation
-            if (monitor.isCanceled()) {
+            if (progress.isCanceled()) {
                 return;
             }
 
             String prjName = configuration.getAttribute(IOfficeLaunchConstants.PROJECT_NAME, new String());
             boolean useCleanUserInstallation = configuration
                 .getAttribute(IOfficeLaunchConstants.CLEAN_USER_INSTALLATION, false);
+            boolean live = ILaunchManager.RUN_MODE.equals(mode)
+                && configuration.getAttribute(IOfficeLaunchConstants.LIVE_DEPLOYMENT, false);
 
-            IUnoidlProject unoprj = ProjectsManager.getProject(prjName);
+            IUnoidlProject unoprj = ProjectsManager.waitForProject(prjName);
 
             if (null != unoprj) {
+                List<LaunchStage> stages = new ArrayList<LaunchStage>();
                 try {
                     IPath userInstallation = null;
                     if (useCleanUserInstallation) {
@@ -101,30 +118,73 @@ public class OfficeLaunchDelegate extends LaunchConfigurationDelegate {
                         userInstallation = userInstallationFolder.getLocation();
                     }
 
-                    // Force the build
-                    IProject prj = ResourcesPlugin.getWorkspace().getRoot().getProject(prjName);
-                    TypesBuilder.build(prj, monitor);
+                    // Check before populating the profile: a wiped profile doesn't contain the packages anymore
+                    Map<IUnoidlProject, File> changed = new LinkedHashMap<IUnoidlProject, File>();
+                    for (IUnoidlProject project : getProjects(unoprj, configuration)) {
+                        File destFile = getPackageFile(project);
+                        boolean upToDate = unoprj.getOOo().canManagePackages()
+                            && DeployedPackages.isUpToDate(project, unoprj.getOOo(), userInstallation, destFile);
+                        if (upToDate) {
+                            PluginLogger.info("Package already deployed, skipping the build: " + //$NON-NLS-1$
+                                destFile);
+                        } else {
+                            changed.put(project, destFile);
+                        }
+                    }
 
-                    IFile properties = prj.getFile("package.properties");
-                    PackagePropertiesModel propertiesModel = new PackagePropertiesModel(properties);
-                    List<IResource> resources = propertiesModel.getContents();
-                    File destFile = exportComponent(unoprj, resources);
-                    monitor.worked(1);
+                    // The profile and the pooled office are prepared while the packages are built
+                    PrepareOfficeStage prepare = new PrepareOfficeStage(unoprj, launch, userInstallation, live);
+                    start(prepare, stages);
 
-                    // Deploy the component
-                    deployComponent(unoprj, userInstallation, destFile);
+                    if (changed.isEmpty()) {
+                        // Nothing changed since the last deployment: only start the office
+                        progress.worked(BUILD_UNITS + DEPLOY_UNITS);
+                        prepare.await(progress.split(PREPARE_UNITS));
+                    } else {
+                        // The projects are built and packaged concurrently
+                        List<LaunchStage> builds = new ArrayList<LaunchStage>();
+                        for (Entry<IUnoidlProject, File> entry : changed.entrySet()) {
+                            LaunchStage build = new BuildPackageStage(entry.getKey(), entry.getValue());
+                            start(build, stages);
+                            builds.add(build);
+                        }
+                        SubMonitor buildProgress = progress.split(BUILD_UNITS).setWorkRemaining(builds.size());
+                        for (LaunchStage build : builds) {
+                            build.await(buildProgress.split(1));
+                        }
 
-                    monitor.worked(1);
+                        // Deploying needs the populated profile and the live office
+                        prepare.await(progress.split(PREPARE_UNITS));
+                        LaunchStage deploy = new DeployPackageStage(unoprj.getOOo(), changed, userInstallation);
+                        start(deploy, stages);
+                        deploy.await(progress.split(DEPLOY_UNITS));
+                    }
 
                     // Run an LibreOffice instance
-                    if (ILaunchManager.DEBUG_MODE.equals(mode)) {
-                        unoprj.getLanguage().connectDebuggerToOffice(unoprj, launch, userInstallation, monitor);
+                    if (!live && userInstallation != null) {
+                        // An idle pooled office may have deployed the package, but it would catch the office
+                        // started on the same profile
+                        OfficePool.evict(unoprj.getOOo(), userInstallation);
+                    }
+                    LiveOffice liveOffice = prepare.getLiveOffice();
+                    if (prepare.isPooled()) {
+                        liveOffice.openDocument();
+                    } else if (liveOffice != null) {
+                        PluginLogger.info("LibreOffice is already running with the deployed package"); //$NON-NLS-1$
+                    } else if (live) {
+                        runLiveOffice(unoprj, launch, userInstallation, progress.split(1));
+                    } else if (ILaunchManager.DEBUG_MODE.equals(mode)) {
+                        unoprj.getLanguage().connectDebuggerToOffice(unoprj, launch, userInstallation,
+                            progress.split(1));
                     } else {
                         unoprj.getOOo().runOffice(unoprj, launch, userInstallation, new NullExtraOptionsProvider(),
-                            monitor);
+                            progress.split(1));
                     }
-                    monitor.worked(1);
+                } catch (OperationCanceledException e) {
+                    PluginLogger.info("Launch canceled: " + configuration.getName()); //$NON-NLS-1$
+                    cancel(stages);
                 } catch (Exception e) {
+                    cancel(stages);
                     PluginLogger.error(Messages.OfficeLaunchDelegate_LaunchError, e);
                     Display.getDefault().asyncExec(new Runnable() {
 
@@ -138,27 +198,182 @@ public class OfficeLaunchDelegate extends LaunchConfigurationDelegate {
                 }
             }
         } finally {
-            monitor.done();
+            if (monitor != null) {
+                monitor.done();
+            }
+        }
+    }
+
+    /**
+     * Schedules a launch stage.
+     *
+     * @param stage
+     *            the stage to run
+     * @param stages
+     *            the stages of the launch, to cancel them if the launch fails
+     */
+    private void start(LaunchStage stage, List<LaunchStage> stages) {
+        stages.add(stage);
+        stage.schedule();
+    }
+
+    /**
+     * Cancels the stages still running after a failed or canceled launch.
+     *
+     * @param stages
+     *            the stages of the launch
+     */
+    private void cancel(List<LaunchStage> stages) {
+        for (LaunchStage stage : stages) {
+            stage.abort();
+        }
+    }
+
+    /**
+     * Gets the projects to deploy: the launched project and the additional projects it depends on.
+     *
+     * @param prj
+     *            the launched project
+     * @param configuration
+     *            the launch configuration
+     *
+     * @return the projects, starting with the launched one
+     *
+     * @throws CoreException
+     *             if the configuration can't be read
+     */
+    private List<IUnoidlProject> getProjects(IUnoidlProject prj, ILaunchConfiguration configuration)
+        throws CoreException {
+        List<IUnoidlProject> projects = new ArrayList<IUnoidlProject>();
+        projects.add(prj);
+
+        List<String> names = configuration.getAttribute(IOfficeLaunchConstants.ADDITIONAL_PROJECTS,
+            new ArrayList<String>());
+        for (String name : names) {
+            IUnoidlProject additional = ProjectsManager.waitForProject(name);
+            if (additional == null) {
+                PluginLogger.warning("Skipping the missing UNO project: " + name); //$NON-NLS-1$
+            } else if (!projects.contains(additional)) {
+                projects.add(additional);
+            }
+        }
+        return projects;
+    }
+
+    /**
+     * Deploys the .oxt components in a LibreOffice installation, all at once.
+     *
+     * @param ooo
+     *            the office of the launched project
+     * @param packages
+     *            the .oxt files of the projects
+     * @param userInstallation
+     *            user profile to use
+     *
+     * @throws CoreException
+     *             if the packages couldn't be deployed: the office mustn't be shown without them
+     */
+    private void deployComponents(IOOo ooo, Map<IUnoidlProject, File> packages, IPath userInstallation)
+        throws CoreException {
+        if (ooo.canManagePackages()) {
+            List<File> toDeploy = new ArrayList<File>();
+            for (Entry<IUnoidlProject, File> entry : packages.entrySet()) {
+                File oxtFile = entry.getValue();
+                if (DeployedPackages.isDeployed(entry.getKey(), ooo, userInstallation, oxtFile)) {
+                    // The same package content is already deployed: avoid the costly unopkg call
+                    PluginLogger.info("Package content unchanged, skipping the deployment: " + oxtFile); //$NON-NLS-1$
+                    DeployedPackages.record(entry.getKey(), ooo, userInstallation, oxtFile);
+                } else {
+                    toDeploy.add(oxtFile);
+                }
+            }
+
+            if (!toDeploy.isEmpty()) {
+                if (!ooo.updatePackages(toDeploy, userInstallation)) {
+                    throw new CoreException(new Status(IStatus.ERROR, OOEclipsePlugin.OOECLIPSE_PLUGIN_ID,
+                        MessageFormat.format(Messages.OfficeLaunchDelegate_DeployError, ooo.getName())));
+                }
+                for (Entry<IUnoidlProject, File> entry : packages.entrySet()) {
+                    DeployedPackages.record(entry.getKey(), ooo, userInstallation, entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Uses an office of the pool as live office: the package will be deployed through its extension manager.
+     *
+     * @param prj
+     *            target project
+     * @param launch
+     *            the launch to add the office process to
+     * @param userInstallation
+     *            user profile to use
+     *
+     * @return the live office or <code>null</code> if no pooled office could be used
+     */
+    private LiveOffice leaseLiveOffice(IUnoidlProject prj, ILaunch launch, IPath userInstallation) {
+        LiveOffice office = null;
+        try {
+            OfficeLease lease = OfficePool.lease(prj.getOOo(), userInstallation);
+            office = LiveOffice.adopt(lease);
+            office.setProcess(DebugPlugin.newProcess(launch, lease.getProcess(),
+                Messages.OfficeLaunchDelegate_ProcessName));
+        } catch (Exception e) {
+            PluginLogger.warning(e.getMessage(), e);
+            if (office != null) {
+                // The office isn't attached to the launch: nothing else would stop it
+                office.discard();
+                office = null;
+            }
         }
+        return office;
     }
 
     /**
-     * Deploys the .oxt component in a LibreOffice installation.
+     * Runs an office accepting UNO connections, to redeploy the package in it at the next launches.
      *
      * @param prj
      *            target project
+     * @param launch
+     *            the launch to add the office process to
      * @param userInstallation
      *            user profile to use
-     * @param oxtFile
-     *            the .oxt file
+     * @param monitor
+     *            a monitor to follow the progress
      */
-    private void deployComponent(IUnoidlProject prj, IPath userInstallation, File oxtFile) {
-        IOOo mOOo = prj.getOOo();
-        if (mOOo.canManagePackages()) {
-            mOOo.updatePackage(oxtFile, userInstallation);
+    private void runLiveOffice(IUnoidlProject prj, ILaunch launch, IPath userInstallation,
+        IProgressMonitor monitor) {
+        final LiveOffice office = LiveOffice.create(prj.getOOo(), userInstallation);
+        prj.getOOo().runOffice(prj, launch, userInstallation, new NullExtraOptionsProvider() {
+
+            @Override
+            public String addArguments(String command) {
+                return command + " " + office.getAcceptArgument(); //$NON-NLS-1$
+            }
+        }, monitor);
+
+        IProcess[] processes = launch.getProcesses();
+        if (processes.length > 0) {
+            office.setProcess(processes[processes.length - 1]);
         }
     }
 
+    /**
+     * Gets the .oxt file built for the project.
+     *
+     * @param prj
+     *            the target project.
+     *
+     * @return the .oxt file, which may not exist yet.
+     * @throws CoreException
+     *             if the distribution folder can't be created.
+     */
+    private File getPackageFile(IUnoidlProject prj) throws CoreException {
+        IFolder distFolder = prj.getDistFolder();
+        return distFolder.getFile(prj.getName() + ".oxt").getLocation().toFile();
+    }
+
     /**
      * Will build and export the .oxt file.
      *
@@ -166,20 +381,205 @@ public class OfficeLaunchDelegate extends LaunchConfigurationDelegate {
      *            the target project.
      * @param resources
      *            the resources to add to the package
+     * @param destFile
+     *            the .oxt file to write.
      *
-     * @return the file containing the .oxt file.
      * @throws Exception
      *             if something goes wrong.
      */
-    private File exportComponent(IUnoidlProject prj, List<IResource> resources) throws Exception {
-
-        IFolder distFolder = prj.getDistFolder();
-        File destFile = distFolder.getFile(prj.getName() + ".oxt").getLocation().toFile();
-
+    private void exportComponent(IUnoidlProject prj, List<IResource> resources, File destFile) throws Exception {
         UnoPackage pack = PackageContentSelector.createPackage(prj, destFile, resources);
 
         pack.close();
-        return destFile;
     }
 
+    /**
+     * Populates the clean user profile and gets the office to deploy into, while the package is built.
+     */
+    private class PrepareOfficeStage extends LaunchStage {
+
+        private IUnoidlProject mProject;
+        private ILaunch mLaunch;
+        private IPath mUserInstallation;
+        private boolean mLive;
+
+        private LiveOffice mLiveOffice;
+        private boolean mPooled = false;
+        private boolean mAborted = false;
+
+        /**
+         * Constructor.
+         *
+         * @param prj
+         *            target project
+         * @param launch
+         *            the launch to add a pooled office process to
+         * @param userInstallation
+         *            user profile to use, or <code>null</code>
+         * @param live
+         *            whether the package is deployed in a running office
+         */
+        PrepareOfficeStage(IUnoidlProject prj, ILaunch launch, IPath userInstallation, boolean live) {
+            super(Messages.OfficeLaunchDelegate_PrepareStage);
+            mProject = prj;
+            mLaunch = launch;
+            mUserInstallation = userInstallation;
+            mLive = live;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void runStage(IProgressMonitor monitor) throws Exception {
+            monitor.beginTask(getName(), 2);
+            if (mUserInstallation != null) {
+                monitor.subTask(Messages.OfficeLaunchDelegate_ProfileTask);
+                ProfileTemplates.populate(mProject.getOOo(), mUserInstallation);
+            }
+            monitor.worked(1);
+            checkCanceled(monitor);
+
+            if (mLive) {
+                LiveOffice office = LiveOffice.getRunning(mProject.getOOo(), mUserInstallation);
+                boolean pooled = false;
+                if (office == null && mUserInstallation != null) {
+                    monitor.subTask(Messages.OfficeLaunchDelegate_StartTask);
+                    office = leaseLiveOffice(mProject, mLaunch, mUserInstallation);
+                    pooled = office != null;
+                }
+
+                synchronized (this) {
+                    mLiveOffice = office;
+                    mPooled = pooled;
+                    if (mAborted) {
+                        // The launch failed while the office was starting
+                        discardPooledOffice();
+                    }
+                }
+            }
+            monitor.worked(1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void abort() {
+            super.abort();
+            synchronized (this) {
+                mAborted = true;
+                discardPooledOffice();
+            }
+        }
+
+        /**
+         * Stops the office taken from the pool for this launch: it is invisible and nobody would use it.
+         */
+        private void discardPooledOffice() {
+            if (mPooled) {
+                mLiveOffice.discard();
+                mLiveOffice = null;
+                mPooled = false;
+            }
+        }
+
+        /**
+         * @return the running office to deploy into, or <code>null</code>
+         */
+        LiveOffice getLiveOffice() {
+            return mLiveOffice;
+        }
+
+        /**
+         * @return <code>true</code> if the live office has just been taken from the pool
+         */
+        boolean isPooled() {
+            return mPooled;
+        }
+    }
+
+    /**
+     * Builds the project types and exports the package. The stage holds the project rule: the builds of different
+     * projects overlap, but not with an other build of the same project.
+     */
+    private class BuildPackageStage extends LaunchStage {
+
+        private IUnoidlProject mUnoProject;
+        private IProject mProject;
+        private File mDestFile;
+
+        /**
+         * Constructor.
+         *
+         * @param unoprj
+         *            target project
+         * @param destFile
+         *            the .oxt file to write
+         */
+        BuildPackageStage(IUnoidlProject unoprj, File destFile) {
+            super(MessageFormat.format(Messages.OfficeLaunchDelegate_BuildStage, unoprj.getName()));
+            mUnoProject = unoprj;
+            mProject = ResourcesPlugin.getWorkspace().getRoot().getProject(unoprj.getName());
+            mDestFile = destFile;
+            setRule(mProject);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void runStage(IProgressMonitor monitor) throws Exception {
+            SubMonitor progress = SubMonitor.convert(monitor, getName(), 3);
+
+            // Force the build
+            TypesBuilder.build(mProject, progress.split(2));
+
+            progress.subTask(Messages.OfficeLaunchDelegate_ExportTask);
+            IFile properties = mProject.getFile("package.properties"); //$NON-NLS-1$
+            PackagePropertiesModel propertiesModel = new PackagePropertiesModel(properties);
+            List<IResource> resources = propertiesModel.getContents();
+            exportComponent(mUnoProject, resources, mDestFile);
+            progress.worked(1);
+        }
+    }
+
+    /**
+     * Deploys the exported packages. The deployment isn't interrupted once started: a killed unopkg could
+     * leave the profile extensions registry in an inconsistent state.
+     */
+    private class DeployPackageStage extends LaunchStage {
+
+        private IOOo mOOo;
+        private Map<IUnoidlProject, File> mPackages;
+        private IPath mUserInstallation;
+
+        /**
+         * Constructor.
+         *
+         * @param ooo
+         *            the office to deploy into
+         * @param packages
+         *            the .oxt files of the projects to deploy
+         * @param userInstallation
+         *            user profile to use
+         */
+        DeployPackageStage(IOOo ooo, Map<IUnoidlProject, File> packages, IPath userInstallation) {
+            super(MessageFormat.format(Messages.OfficeLaunchDelegate_DeployStage, ooo.getName()));
+            mOOo = ooo;
+            mPackages = packages;
+            mUserInstallation = userInstallation;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void runStage(IProgressMonitor monitor) throws Exception {
+            monitor.beginTask(getName(), 1);
+            checkCanceled(monitor);
+            deployComponents(mOOo, mPackages, mUserInstallation);
+            monitor.worked(1);
+        }
+    }
 }
@@ -30,6 +30,9 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.core.launch.office;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
@@ -37,6 +40,8 @@ import org.eclipse.debug.ui.AbstractLaunchConfigurationTab;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
@@ -62,9 +67,13 @@ import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 public class OfficeTab extends AbstractLaunchConfigurationTab {
 
     private static final int LAYOUT_COLUMNS = 3;
+    private static final String PROJECTS_SEPARATOR = ","; //$NON-NLS-1$
     private Text mProjectTxt;
     private Button mProjectBtn;
+    private Text mAdditionalProjectsTxt;
+    private Button mAdditionalProjectsBtn;
     private Button mUseCleanUserInstallation;
+    private Button mLiveDeployment;
     private SelectionListener mListener = new ChangeListener();
 
     /**
@@ -98,6 +107,10 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
         mUseCleanUserInstallation = createCheckButton(group, Messages.OfficeTab_ChkUseCleanUserInstallation);
         mUseCleanUserInstallation.addSelectionListener(mListener);
         mUseCleanUserInstallation.setToolTipText(Messages.OfficeTab_ChkUseCleanUserInstallation_ToolTip);
+
+        mLiveDeployment = createCheckButton(group, Messages.OfficeTab_ChkLiveDeployment);
+        mLiveDeployment.addSelectionListener(mListener);
+        mLiveDeployment.setToolTipText(Messages.OfficeTab_ChkLiveDeployment_ToolTip);
     }
 
     /**
@@ -127,6 +140,39 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
         mProjectBtn = new Button(field, SWT.PUSH);
         mProjectBtn.setText("...");
         mProjectBtn.addSelectionListener(mListener);
+
+        Label additionalLbl = new Label(field, SWT.NONE);
+        additionalLbl.setText(Messages.OfficeTab_AdditionalProjectsLabel);
+        additionalLbl.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING));
+
+        mAdditionalProjectsTxt = new Text(field, SWT.SINGLE | SWT.BORDER);
+        mAdditionalProjectsTxt.setLayoutData(new GridData(GridData.FILL_HORIZONTAL | GridData.GRAB_HORIZONTAL));
+        mAdditionalProjectsTxt.setToolTipText(Messages.OfficeTab_AdditionalProjectsToolTip);
+        mAdditionalProjectsTxt.addModifyListener(new ModifyListener() {
+
+            @Override
+            public void modifyText(ModifyEvent event) {
+                setDirty(true);
+                getLaunchConfigurationDialog().updateButtons();
+            }
+        });
+
+        mAdditionalProjectsBtn = new Button(field, SWT.PUSH);
+        mAdditionalProjectsBtn.setText("..."); //$NON-NLS-1$
+        mAdditionalProjectsBtn.addSelectionListener(mListener);
+    }
+
+    /**
+     * @return the names of the additional projects typed in the text field
+     */
+    private List<String> getAdditionalProjects() {
+        List<String> names = new ArrayList<String>();
+        for (String name : mAdditionalProjectsTxt.getText().split(PROJECTS_SEPARATOR)) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
     }
 
     /**
@@ -152,8 +198,13 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
     public void initializeFrom(ILaunchConfiguration configuration) {
         try {
             mProjectTxt.setText(configuration.getAttribute(IOfficeLaunchConstants.PROJECT_NAME, ""));
+            List<String> additional = configuration.getAttribute(IOfficeLaunchConstants.ADDITIONAL_PROJECTS,
+                new ArrayList<String>());
+            mAdditionalProjectsTxt.setText(String.join(PROJECTS_SEPARATOR + " ", additional)); //$NON-NLS-1$
             mUseCleanUserInstallation.setSelection(
                 configuration.getAttribute(IOfficeLaunchConstants.CLEAN_USER_INSTALLATION, false));
+            mLiveDeployment.setSelection(
+                configuration.getAttribute(IOfficeLaunchConstants.LIVE_DEPLOYMENT, false));
         } catch (CoreException e) {
             PluginLogger.error(Messages.OfficeTab_Configurationerror, e);
         }
@@ -165,8 +216,10 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
     @Override
     public void performApply(ILaunchConfigurationWorkingCopy configuration) {
         configuration.setAttribute(IOfficeLaunchConstants.PROJECT_NAME, mProjectTxt.getText().trim());
+        configuration.setAttribute(IOfficeLaunchConstants.ADDITIONAL_PROJECTS, getAdditionalProjects());
         configuration.setAttribute(IOfficeLaunchConstants.CLEAN_USER_INSTALLATION,
             mUseCleanUserInstallation.getSelection());
+        configuration.setAttribute(IOfficeLaunchConstants.LIVE_DEPLOYMENT, mLiveDeployment.getSelection());
 
         try {
             String projectName = configuration.getAttribute(IOfficeLaunchConstants.PROJECT_NAME, "");
@@ -185,7 +238,9 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
     @Override
     public void setDefaults(ILaunchConfigurationWorkingCopy configuration) {
         configuration.setAttribute(IOfficeLaunchConstants.PROJECT_NAME, "");
+        configuration.setAttribute(IOfficeLaunchConstants.ADDITIONAL_PROJECTS, new ArrayList<String>());
         configuration.setAttribute(IOfficeLaunchConstants.CLEAN_USER_INSTALLATION, false);
+        configuration.setAttribute(IOfficeLaunchConstants.LIVE_DEPLOYMENT, false);
     }
 
     @Override
@@ -224,6 +279,24 @@ public class OfficeTab extends AbstractLaunchConfigurationTab {
                     IUnoidlProject mProject = (IUnoidlProject) dialog.getFirstResult();
                     mProjectTxt.setText(mProject.getName());
                 }
+            } else if (event.getSource().equals(mAdditionalProjectsBtn)) {
+                ElementListSelectionDialog dialog = new ElementListSelectionDialog(getShell(),
+                    new UnoProjectLabelProvider());
+                dialog.setTitle(Messages.OfficeTab_ProjectChooserTitle);
+                dialog.setMessage(Messages.OfficeTab_AdditionalProjectsChooserMessage);
+                dialog.setMultipleSelection(true);
+                dialog.setElements(ProjectsManager.getProjects());
+
+                if (dialog.open() == Window.OK) {
+                    List<String> names = getAdditionalProjects();
+                    for (Object selected : dialog.getResult()) {
+                        String name = ((IUnoidlProject) selected).getName();
+                        if (!names.contains(name)) {
+                            names.add(name);
+                        }
+                    }
+                    mAdditionalProjectsTxt.setText(String.join(PROJECTS_SEPARATOR + " ", names)); //$NON-NLS-1$
+                }
             }
             setDirty(true);
             getLaunchConfigurationDialog().updateButtons();
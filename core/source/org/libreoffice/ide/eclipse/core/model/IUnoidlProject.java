@@ -37,6 +37,7 @@
 package org.libreoffice.ide.eclipse.core.model;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -141,6 +142,19 @@ public interface IUnoidlProject {
      */
     public void setProperty(String name, String value);
 
+    /**
+     * Set several properties to the project at once.
+     *
+     * <p>
+     * The configuration file is written only once and a single resource change is notified, this has to be preferred
+     * to successive calls to {@link #setProperty(String, String)}.
+     * </p>
+     *
+     * @param values
+     *            the properties values mapped by their names
+     */
+    public void setProperties(Map<String, String> values);
+
     /**
      * Get a project's property.
      *
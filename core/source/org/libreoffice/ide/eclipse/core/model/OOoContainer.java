@@ -393,6 +393,9 @@ public class OOoContainer {
         for (int i = 0; i < ooos.length; i++) {
             addOOo(ooos[i]);
         }
+
+        // The installations are checked in background to avoid slowing down the start
+        PropertiesManager.validateInBackground(ooos);
     }
 
     /**
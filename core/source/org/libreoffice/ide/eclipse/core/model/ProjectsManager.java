@@ -36,11 +36,20 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.core.model;
 
-import java.util.Hashtable;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
 import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.internal.model.UnoidlProject;
@@ -48,17 +57,75 @@ import org.libreoffice.ide.eclipse.core.internal.model.UnoidlProject;
 /**
  * Singleton mapping the UNO-IDL projects to their name to provide an easy access to UNO-IDL projects.
  *
+ * <p>
+ * The projects are read without any lock: only the additions and removals are serialized. Each project is configured
+ * only once, even if several threads try to add it at the same time.
+ * </p>
+ *
+ * <p>
+ * At startup the projects are configured by parallel jobs: the code needing a project before it is configured can
+ * wait for it using {@link #waitForProject(String)}. The configuration modifies the project description and class
+ * path, and thus needs the resources rules: the builders and the other code holding a scheduling rule mustn't wait
+ * for it and use {@link #getProject(String)} instead.
+ * </p>
  */
 public class ProjectsManager {
 
-    private static Hashtable<String, IUnoidlProject> sProjects = new Hashtable<String, IUnoidlProject>();
+    private static final IUnoidlProject[] NO_PROJECT = new IUnoidlProject[0];
+
+    private static Map<String, IUnoidlProject> sProjects = new ConcurrentHashMap<String, IUnoidlProject>();
+
+    /**
+     * The names of the projects being configured.
+     */
+    private static Map<String, Boolean> sConfiguring = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * Copy of the projects, replaced after each addition or removal.
+     */
+    private static volatile IUnoidlProject[] sSnapshot = NO_PROJECT;
+
+    private static List<IProjectsListener> sListeners = new CopyOnWriteArrayList<IProjectsListener>();
+
+    private static Object sWriteLock = new Object();
+
+    /**
+     * The configuration jobs scheduled by {@link #load()} and not finished yet.
+     */
+    private static Map<String, Job> sPendingJobs = new ConcurrentHashMap<String, Job>();
 
     /**
      * This method will release all the stored project references. There is no need to call this method in any other
      * place than the plugin stop method.
      */
     public static void dispose() {
-        sProjects.clear();
+        synchronized (sWriteLock) {
+            sProjects.clear();
+            sSnapshot = NO_PROJECT;
+        }
+        sListeners.clear();
+    }
+
+    /**
+     * Add a listener notified of the projects additions and removals.
+     *
+     * @param listener
+     *            the listener to add
+     */
+    public static void addListener(IProjectsListener listener) {
+        if (listener != null && !sListeners.contains(listener)) {
+            sListeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove a listener of the projects additions and removals.
+     *
+     * @param listener
+     *            the listener to remove
+     */
+    public static void removeListener(IProjectsListener listener) {
+        sListeners.remove(listener);
     }
 
     /**
@@ -71,33 +138,73 @@ public class ProjectsManager {
     public static IUnoidlProject getProject(String name) {
 
         IUnoidlProject result = null;
-        if (name != null && sProjects.containsKey(name)) {
+        if (name != null) {
             result = sProjects.get(name);
         }
         return result;
     }
 
+    /**
+     * Returns the unoidl project with the given name after waiting for its configuration job if it hasn't been
+     * configured yet. Only the job of this project is waited for.
+     *
+     * <p>
+     * A thread holding a scheduling rule never waits: the configuration job may need that rule. The project is then
+     * returned only if it is already configured.
+     * </p>
+     *
+     * @param name
+     *            the name of the project to find
+     * @return the found project or <code>null</code> if it isn't a UNO project.
+     */
+    public static IUnoidlProject waitForProject(String name) {
+        Job job = null;
+        if (name != null) {
+            job = sPendingJobs.get(name);
+        }
+
+        // Never wait for the current job nor while holding a rule: it would never end
+        IJobManager manager = Job.getJobManager();
+        if (job != null && manager.currentJob() != job && manager.currentRule() == null) {
+            try {
+                job.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return getProject(name);
+    }
+
     /**
      * Add a project that isn't already loaded.
      *
+     * <p>
+     * Nothing is done if the project is already loaded or being configured by another thread.
+     * </p>
+     *
      * @param pProject
      *            the project to load and add
      */
     public static void addProject(IProject pProject) {
-        try {
-            if (pProject.isAccessible() && pProject.hasNature(OOEclipsePlugin.UNO_NATURE_ID)) {
+        String name = pProject.getName();
+        if (!sProjects.containsKey(name) && sConfiguring.putIfAbsent(name, Boolean.TRUE) == null) {
+            try {
+                if (pProject.isAccessible() && pProject.hasNature(OOEclipsePlugin.UNO_NATURE_ID)) {
 
-                // Load the nature
-                UnoidlProject unoproject = (UnoidlProject) pProject.getNature(OOEclipsePlugin.UNO_NATURE_ID);
+                    // Load the nature
+                    UnoidlProject unoproject = (UnoidlProject) pProject.getNature(OOEclipsePlugin.UNO_NATURE_ID);
 
-                unoproject.configure();
+                    unoproject.configure();
 
-                // Add the project to the manager
-                addProject(unoproject);
+                    // Add the project to the manager
+                    addProject(unoproject);
+                }
+            } catch (CoreException e) {
+                PluginLogger.error(Messages.getString("ProjectsManager.LoadProjectError") + //$NON-NLS-1$
+                    name, e);
+            } finally {
+                sConfiguring.remove(name);
             }
-        } catch (CoreException e) {
-            PluginLogger.error(Messages.getString("ProjectsManager.LoadProjectError") + //$NON-NLS-1$
-                pProject.getName(), e);
         }
     }
 
@@ -108,8 +215,20 @@ public class ProjectsManager {
      *            the project to add
      */
     public static void addProject(IUnoidlProject pProject) {
-        if (pProject != null && !sProjects.containsKey(pProject.getName())) {
-            sProjects.put(pProject.getName(), pProject);
+        boolean added = false;
+        if (pProject != null) {
+            synchronized (sWriteLock) {
+                added = sProjects.putIfAbsent(pProject.getName(), pProject) == null;
+                if (added) {
+                    updateSnapshot();
+                }
+            }
+        }
+
+        if (added) {
+            for (IProjectsListener listener : sListeners) {
+                listener.projectAdded(pProject);
+            }
         }
     }
 
@@ -120,10 +239,21 @@ public class ProjectsManager {
      *            the name of the project to remove
      */
     public static void removeProject(String name) {
-        if (sProjects.containsKey(name)) {
-            IUnoidlProject prj = sProjects.get(name);
+        IUnoidlProject prj = null;
+        if (name != null) {
+            synchronized (sWriteLock) {
+                prj = sProjects.remove(name);
+                if (prj != null) {
+                    updateSnapshot();
+                }
+            }
+        }
+
+        if (prj != null) {
             prj.dispose();
-            sProjects.remove(name);
+            for (IProjectsListener listener : sListeners) {
+                listener.projectRemoved(prj);
+            }
         }
     }
 
@@ -131,14 +261,12 @@ public class ProjectsManager {
      * @return an array containing all the defined UNO projects
      */
     public static IUnoidlProject[] getProjects() {
-        IUnoidlProject[] projects = new IUnoidlProject[sProjects.size()];
-
-        return sProjects.values().toArray(projects);
+        return sSnapshot.clone();
     }
 
     /**
-     * Private constructor for the singleton. Its charge is to load all the existing UNO-IDL projects
-     *
+     * Loads all the existing UNO-IDL projects. Each project is configured by its own job and the method returns
+     * without waiting for them.
      */
     public static void load() {
 
@@ -146,7 +274,61 @@ public class ProjectsManager {
         IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
         for (int i = 0, length = projects.length; i < length; i++) {
             IProject project = projects[i];
-            addProject(project);
+            if (project.isAccessible() && !sProjects.containsKey(project.getName())) {
+                Job job = new ConfigureJob(project);
+                sPendingJobs.put(project.getName(), job);
+                job.schedule();
+            }
+        }
+    }
+
+    /**
+     * Replaces the projects copy returned by {@link #getProjects()}, has to be called with the write lock.
+     */
+    private static void updateSnapshot() {
+        sSnapshot = sProjects.values().toArray(NO_PROJECT);
+    }
+
+    /**
+     * Job configuring a workspace project and adding it to the manager.
+     */
+    private static class ConfigureJob extends Job {
+
+        private IProject mProject;
+
+        /**
+         * Constructor.
+         *
+         * @param project
+         *            the project to configure
+         */
+        public ConfigureJob(IProject project) {
+            super(MessageFormat.format(Messages.getString("ProjectsManager.ConfigureJob"), //$NON-NLS-1$
+                project.getName()));
+            mProject = project;
+            // No rule: configuring the project takes the resources rules it needs
+            setSystem(true);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            try {
+                addProject(mProject);
+            } finally {
+                sPendingJobs.remove(mProject.getName(), this);
+            }
+            return Status.OK_STATUS;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean belongsTo(Object family) {
+            return family == ProjectsManager.class;
         }
     }
 }
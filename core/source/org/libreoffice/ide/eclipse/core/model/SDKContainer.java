@@ -305,6 +305,9 @@ public class SDKContainer {
         for (int i = 0; i < sdks.length; i++) {
             addSDK(sdks[i]);
         }
+
+        // The installations are checked in background to avoid slowing down the start
+        PropertiesManager.validateInBackground(sdks);
     }
 
     /**
@@ -37,7 +37,7 @@
 package org.libreoffice.ide.eclipse.core.model.config;
 
 /**
- * Gets a chance to add some more env variables just before starting an LibreOffice process.
+ * Gets a chance to add some more env variables and arguments just before starting an LibreOffice process.
  */
 public interface IExtraOptionsProvider {
 
@@ -49,4 +49,13 @@ public interface IExtraOptionsProvider {
      * @return the new env variables.
      */
     String[] addEnv(String[] env);
+
+    /**
+     * Add your own command line arguments.
+     *
+     * @param command
+     *            the original command.
+     * @return the new command.
+     */
+    String addArguments(String command);
 }
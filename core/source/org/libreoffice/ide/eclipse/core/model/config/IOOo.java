@@ -37,6 +37,7 @@
 package org.libreoffice.ide.eclipse.core.model.config;
 
 import java.io.File;
+import java.util.List;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -168,6 +169,27 @@ public interface IOOo {
      */
     public void runUno(IUnoidlProject prj, String main, String args, ILaunch launch, IProgressMonitor monitor);
 
+    /**
+     * Run a Java <code>XMain</code> implementation directly in a JVM, without the <code>uno</code> executable.
+     *
+     * <p>
+     * This is faster than {@link #runUno(IUnoidlProject, String, String, ILaunch, IProgressMonitor)}, but only works
+     * for implementations contained in the project jar.
+     * </p>
+     *
+     * @param prj
+     *            the project to run
+     * @param main
+     *            the main implementation
+     * @param args
+     *            the argument to pass to the main implementation
+     * @param launch
+     *            the launcher
+     * @param monitor
+     *            a monitor to follow the progress
+     */
+    public void runUnoInJvm(IUnoidlProject prj, String main, String args, ILaunch launch, IProgressMonitor monitor);
+
     /**
      *
      * @param prj
@@ -184,6 +206,20 @@ public interface IOOo {
     public void runOffice(IUnoidlProject prj, ILaunch launch, IPath userInstallation,
         IExtraOptionsProvider extraOptionsProvider, IProgressMonitor monitor);
 
+    /**
+     * Starts an invisible office accepting UNO connections, without any project.
+     *
+     * @param userInstallation
+     *            path to the user profile folder, or <code>null</code> for the default one.
+     * @param acceptArgument
+     *            the <code>--accept</code> command line argument
+     *
+     * @return the office process
+     * @throws Exception
+     *             if the office process can't be started
+     */
+    public Process startOffice(IPath userInstallation, String acceptArgument) throws Exception;
+
     /**
      * @return <code>true</code> if the LibreOffice instance has a package manager.
      */
@@ -196,6 +232,22 @@ public interface IOOo {
      *            the package to add or update
      * @param userInstallation
      *            path to the user profile folder.
+     *
+     * @return <code>true</code> if the package has been deployed
+     */
+    public boolean updatePackage(File packageFile, IPath userInstallation);
+
+    /**
+     * Update several packages at once in the LibreOffice instance if it can manages packages. The packages are
+     * deployed by a single <code>unopkg</code> run or extension manager session, which is much faster than
+     * deploying them one by one.
+     *
+     * @param packageFiles
+     *            the packages to add or update
+     * @param userInstallation
+     *            path to the user profile folder.
+     *
+     * @return <code>true</code> if all the packages have been deployed
      */
-    public void updatePackage(File packageFile, IPath userInstallation);
+    public boolean updatePackages(List<File> packageFiles, IPath userInstallation);
 }
@@ -49,4 +49,12 @@ public class NullExtraOptionsProvider implements IExtraOptionsProvider {
         return env;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String addArguments(String command) {
+        return command;
+    }
+
 }
@@ -47,11 +47,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
 import java.util.Vector;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -80,7 +82,7 @@ public class PackagePropertiesModel {
 
     private IFile mPropertiesFile;
     private Properties mProperties = new Properties();
-    private List<IResource> mFiles = null;
+    private Set<IResource> mFiles = null;
     private Map<IResource, Boolean> mFolders = null;
 
     private short mDirty = 0;
@@ -677,7 +679,7 @@ public class PackagePropertiesModel {
             }
             if (res.getType() == IResource.FOLDER) {
                 addFolderResource(res);
-            } else if (!mFiles.contains(res)) {
+            } else {
                 mFiles.add(res);
             }
         }
@@ -697,7 +699,7 @@ public class PackagePropertiesModel {
         for (IResource res : members) {
             if (res.getType() == IResource.FOLDER) {
                 removeFolderResource(res);
-            } else if (mFiles.contains(res)) {
+            } else {
                 mFiles.remove(res);
             }
         }
@@ -710,9 +712,7 @@ public class PackagePropertiesModel {
      *            the folder resource
      */
     private void addFileResource(IResource file) throws CoreException {
-        if (!mFiles.contains(file)) {
-            mFiles.add(file);
-        }
+        mFiles.add(file);
         setFileCheckState(file);
     }
 
@@ -723,9 +723,7 @@ public class PackagePropertiesModel {
      *            the folder resource
      */
     private void removeFileResource(IResource file) throws CoreException {
-        if (mFiles.contains(file)) {
-            mFiles.remove(file);
-        }
+        mFiles.remove(file);
         setFileCheckState(file);
     }
 
@@ -780,10 +778,10 @@ public class PackagePropertiesModel {
      * @param paths
      *            the path of missing resource
      *
-     * @return a list of the file resource
+     * @return the file resources, in the order of the package properties
      */
-    private List<IResource> deserializeContent(Map<IResource, Boolean> folders, Map<String, Boolean> paths) {
-        List<IResource> files = new ArrayList<>();
+    private Set<IResource> deserializeContent(Map<IResource, Boolean> folders, Map<String, Boolean> paths) {
+        Set<IResource> files = new LinkedHashSet<>();
         IProject prj = mPropertiesFile.getProject();
         int nbFiles = 0;
         int nbFolders = 0;
@@ -794,8 +792,7 @@ public class PackagePropertiesModel {
                 for (String path : contents.split(SEPARATOR)) {
                     if (prj.getFile(path).exists()) {
                         IFile file = prj.getFile(path);
-                        if (!files.contains(file)) {
-                            files.add(file);
+                        if (files.add(file)) {
                             nbFiles++;
                         }
                     } else if (prj.getFolder(path).exists()) {
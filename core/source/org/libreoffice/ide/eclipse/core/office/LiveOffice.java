@@ -0,0 +1,336 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.office;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.IDebugEventSetListener;
+import org.eclipse.debug.core.model.IProcess;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+
+/**
+ * Facade class handling an office kept running between the launches to redeploy the packages in it.
+ *
+ * <p>
+ * The office is started accepting UNO connections on a named pipe. The packages are then deployed through a UNO
+ * bridge to its extension manager instead of running <code>unopkg</code> and restarting the office.
+ * </p>
+ */
+public class LiveOffice {
+
+    private static final String PIPE_PREFIX = "ooeclipse_"; //$NON-NLS-1$
+
+    private static Map<String, LiveOffice> sOffices = new HashMap<>();
+
+    private static int sPipeCounter = 0;
+
+    private IOOo mOOo;
+
+    private IPath mUserInstallation;
+
+    private String mPipeName;
+
+    private boolean mPooled = false;
+
+    private OfficeLease mLease;
+
+    private volatile boolean mDiscarded = false;
+
+    private IProcess mProcess;
+
+    private Object mConnection;
+
+    private String mDebugPort;
+
+    /**
+     * Constructor.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile, or <code>null</code> for the default one
+     * @param pipeName
+     *            the name of the pipe the office will accept connections on
+     */
+    private LiveOffice(IOOo ooo, IPath userInstallation, String pipeName) {
+        mOOo = ooo;
+        mUserInstallation = userInstallation;
+        mPipeName = pipeName;
+    }
+
+    /**
+     * Gets the live office running for an office installation and a user profile.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile, or <code>null</code> for the default one
+     *
+     * @return the running office or <code>null</code> if none is running
+     */
+    public static synchronized LiveOffice getRunning(IOOo ooo, IPath userInstallation) {
+        String key = getKey(ooo, userInstallation);
+        LiveOffice office = sOffices.get(key);
+        if (office != null && !office.isRunning()) {
+            office.disconnect();
+            sOffices.remove(key);
+            office = null;
+        }
+        return office;
+    }
+
+    /**
+     * Creates the live office for an office installation and a user profile. The office process has to be started
+     * with the {@link #getAcceptArgument()} argument and then set using {@link #setProcess(IProcess)}.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile, or <code>null</code> for the default one
+     *
+     * @return the created live office
+     */
+    public static synchronized LiveOffice create(IOOo ooo, IPath userInstallation) {
+        String key = getKey(ooo, userInstallation);
+        LiveOffice previous = sOffices.get(key);
+        if (previous != null) {
+            previous.disconnect();
+        }
+
+        sPipeCounter++;
+        String pipeName = PIPE_PREFIX + Integer.toHexString(key.hashCode()) + '_' + sPipeCounter;
+        LiveOffice office = new LiveOffice(ooo, userInstallation, pipeName);
+        sOffices.put(key, office);
+        return office;
+    }
+
+    /**
+     * Creates the live office from an office of the {@link OfficePool}. The lease is detached from the pool and
+     * the office process has to be set using {@link #setProcess(IProcess)}. Once this office is terminated, an other
+     * office is started in the background for the next launch.
+     *
+     * @param lease
+     *            the lease of the pooled office, started on the user profile of the launch
+     *
+     * @return the created live office
+     */
+    public static synchronized LiveOffice adopt(OfficeLease lease) {
+        lease.detach();
+
+        String key = getKey(lease.getOOo(), lease.getUserInstallation());
+        LiveOffice previous = sOffices.get(key);
+        if (previous != null) {
+            previous.disconnect();
+        }
+
+        LiveOffice office = new LiveOffice(lease.getOOo(), lease.getUserInstallation(), lease.getPipeName());
+        office.mConnection = lease.getConnection();
+        office.mPooled = true;
+        office.mLease = lease;
+        sOffices.put(key, office);
+        return office;
+    }
+
+    /**
+     * Closes the connections to all the live offices, leaving them running.
+     */
+    public static synchronized void dispose() {
+        for (LiveOffice office : sOffices.values()) {
+            office.disconnect();
+        }
+        sOffices.clear();
+    }
+
+    /**
+     * @return the command line argument making the office accept the UNO connections
+     */
+    public String getAcceptArgument() {
+        return "--accept=pipe,name=" + mPipeName + ";urp;"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * @return the port the Java debugger of the office listens to, or <code>null</code> if the office hasn't been
+     *         started for debugging
+     */
+    public String getDebugPort() {
+        return mDebugPort;
+    }
+
+    /**
+     * @param debugPort
+     *            the port the Java debugger of the office listens to. Debug launches attach a new debug session to
+     *            this port instead of starting an other office.
+     */
+    public void setDebugPort(String debugPort) {
+        mDebugPort = debugPort;
+    }
+
+    /**
+     * @param process
+     *            the office process started with the {@link #getAcceptArgument()} argument
+     */
+    public void setProcess(final IProcess process) {
+        mProcess = process;
+
+        if (mPooled) {
+            DebugPlugin.getDefault().addDebugEventListener(new IDebugEventSetListener() {
+
+                @Override
+                public void handleDebugEvents(DebugEvent[] events) {
+                    for (DebugEvent event : events) {
+                        if (event.getSource() == process && event.getKind() == DebugEvent.TERMINATE) {
+                            DebugPlugin.getDefault().removeDebugEventListener(this);
+                            if (!mDiscarded) {
+                                OfficePool.prestart(mOOo, mUserInstallation);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops an office taken from the pool before it has been shown, because its launch failed or was canceled.
+     * No office is started in the background to replace it.
+     */
+    public void discard() {
+        synchronized (LiveOffice.class) {
+            String key = getKey(mOOo, mUserInstallation);
+            if (sOffices.get(key) == this) {
+                sOffices.remove(key);
+            }
+        }
+        mDiscarded = true;
+        disconnect();
+        if (mLease != null && !mLease.discard()) {
+            PluginLogger.warning(Messages.getString("LiveOffice.DiscardError") + mPipeName); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Opens a new document to show a window of an office started invisible.
+     */
+    public synchronized void openDocument() {
+        try {
+            mConnection.getClass().getMethod("openDocument").invoke(mConnection); //$NON-NLS-1$
+        } catch (Exception e) {
+            PluginLogger.warning(Messages.getString("LiveOffice.OpenDocumentError"), e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the office process is still running
+     */
+    public boolean isRunning() {
+        return mProcess != null && !mProcess.isTerminated();
+    }
+
+    /**
+     * Adds or replaces a package in the running office.
+     *
+     * @param packageFile
+     *            the package to deploy
+     *
+     * @throws Exception
+     *             if the office can't be reached or if the extension manager refused the package. The exception
+     *             message describes the problems reported by the office.
+     */
+    public synchronized void deploy(File packageFile) throws Exception {
+        String error = null;
+        try {
+            OfficeClassLoader oooClassLoader = OfficeClassLoader.getClassLoader(mOOo,
+                LiveOffice.class.getClassLoader());
+            Class<?> cnxClazz = oooClassLoader.loadClass(OfficeHelper.CLASS_CONNECTION);
+
+            // Reuse the bridge while it is alive
+            boolean connected = mConnection != null
+                && ((Boolean) cnxClazz.getMethod("isConnected").invoke(mConnection)).booleanValue(); //$NON-NLS-1$
+            if (!connected) {
+                mConnection = OfficeHelper.createConnection(oooClassLoader, mOOo);
+                Method connect = cnxClazz.getMethod("connect", String.class); //$NON-NLS-1$
+                connect.invoke(mConnection, "pipe,name=" + mPipeName); //$NON-NLS-1$
+            }
+
+            error = OfficeHelper.deployPackage(oooClassLoader, mConnection, packageFile);
+        } catch (Exception e) {
+            mConnection = null;
+            throw new Exception(Messages.getString("LiveOffice.ConnectionError") + mPipeName, e); //$NON-NLS-1$
+        }
+
+        if (error != null) {
+            throw new Exception(error);
+        }
+    }
+
+    /**
+     * Closes the UNO bridge to the office.
+     */
+    private synchronized void disconnect() {
+        if (mConnection != null) {
+            try {
+                mConnection.getClass().getMethod("disconnect").invoke(mConnection); //$NON-NLS-1$
+            } catch (Exception e) {
+                PluginLogger.debug("Failed to close the office connection: " + e.getMessage()); //$NON-NLS-1$
+            }
+            mConnection = null;
+        }
+    }
+
+    /**
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile, or <code>null</code>
+     *
+     * @return the key of the live office
+     */
+    private static String getKey(IOOo ooo, IPath userInstallation) {
+        String profile = ""; //$NON-NLS-1$
+        if (userInstallation != null) {
+            profile = userInstallation.toPortableString();
+        }
+        return ooo.getHome() + '@' + profile;
+    }
+}
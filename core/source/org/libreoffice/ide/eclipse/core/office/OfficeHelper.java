@@ -36,7 +36,9 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.core.office;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
 import java.net.URLClassLoader;
 
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
@@ -52,6 +54,8 @@ public class OfficeHelper {
 
     static final String CLASS_CONNECTION = OOO_PACKAGE + ".OfficeConnection"; //$NON-NLS-1$
 
+    static final String CLASS_DEPLOYER = OOO_PACKAGE + ".ExtensionDeployer"; //$NON-NLS-1$
+
     /**
      * Create an office connection object using a given class loader.
      *
@@ -72,4 +76,29 @@ public class OfficeHelper {
         Constructor<?> constr = clazz.getConstructor(IOOo.class);
         return constr.newInstance(ooo);
     }
+
+    /**
+     * Adds or replaces a package through the extension manager of a connected office.
+     *
+     * @param classLoader
+     *            the class loader of the connection
+     * @param connection
+     *            the connected office connection object
+     * @param packageFile
+     *            the package to deploy
+     *
+     * @return the problems reported by the office, or <code>null</code> if the package has been deployed
+     *
+     * @throws Exception
+     *             if the office can't be reached
+     */
+    static String deployPackage(URLClassLoader classLoader, Object connection, File packageFile) throws Exception {
+        Class<?> cnxClazz = classLoader.loadClass(CLASS_CONNECTION);
+        Class<?> clazz = classLoader.loadClass(CLASS_DEPLOYER);
+        Object deployer = clazz.getDeclaredConstructor().newInstance();
+        clazz.getMethod("setConnection", cnxClazz).invoke(deployer, connection); //$NON-NLS-1$
+
+        Method deploy = clazz.getMethod("deploy", String.class); //$NON-NLS-1$
+        return (String) deploy.invoke(deployer, packageFile.getAbsolutePath());
+    }
 }
@@ -0,0 +1,262 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.office;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IPath;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+
+/**
+ * An office of the {@link OfficePool}, handed to a single user at a time.
+ *
+ * <p>
+ * The lease has to be given back to the pool using {@link #release()} once the office isn't needed anymore, or
+ * taken out of the pool using {@link #detach()} if the office will be used for a long time, like for a launch.
+ * </p>
+ */
+public class OfficeLease {
+
+    private static final long CONNECT_RETRY_DELAY = 250;
+
+    private static final long STOP_TIMEOUT = 10;
+
+    private IOOo mOOo;
+
+    private IPath mUserInstallation;
+
+    private String mPipeName;
+
+    private Process mProcess;
+
+    private Object mConnection;
+
+    private long mIdleSince;
+
+    /**
+     * Constructor.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile used by the office
+     * @param pipeName
+     *            the name of the pipe the office accepts the connections on
+     * @param process
+     *            the office process
+     */
+    OfficeLease(IOOo ooo, IPath userInstallation, String pipeName, Process process) {
+        mOOo = ooo;
+        mUserInstallation = userInstallation;
+        mPipeName = pipeName;
+        mProcess = process;
+    }
+
+    /**
+     * @return the office installation
+     */
+    public IOOo getOOo() {
+        return mOOo;
+    }
+
+    /**
+     * @return the user profile used by the office
+     */
+    public IPath getUserInstallation() {
+        return mUserInstallation;
+    }
+
+    /**
+     * @return the name of the pipe the office accepts the connections on
+     */
+    public String getPipeName() {
+        return mPipeName;
+    }
+
+    /**
+     * @return the office process
+     */
+    public Process getProcess() {
+        return mProcess;
+    }
+
+    /**
+     * @return <code>true</code> if the office process is still running
+     */
+    public boolean isRunning() {
+        return mProcess.isAlive();
+    }
+
+    /**
+     * Gives the office back to the pool for the next users.
+     */
+    public void release() {
+        OfficePool.release(this);
+    }
+
+    /**
+     * Stops the office instead of giving it back to the pool, for example because it failed and its user profile has
+     * to be written by an other process.
+     *
+     * @return <code>true</code> if the office process is terminated
+     */
+    public boolean discard() {
+        OfficePool.discard(this);
+        boolean stopped = false;
+        try {
+            stopped = mProcess.waitFor(STOP_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return stopped;
+    }
+
+    /**
+     * Takes the office out of the pool: the pool won't give it to any other user nor stop it.
+     */
+    public void detach() {
+        OfficePool.detach(this);
+    }
+
+    /**
+     * Adds or replaces a package through the extension manager of the office.
+     *
+     * @param packageFile
+     *            the package to deploy
+     *
+     * @throws Exception
+     *             if the office can't be reached or refused the package. The exception message describes the problems
+     *             reported by the office.
+     */
+    public void deploy(File packageFile) throws Exception {
+        OfficeClassLoader oooClassLoader = OfficeClassLoader.getClassLoader(mOOo, OfficeLease.class.getClassLoader());
+        String error = OfficeHelper.deployPackage(oooClassLoader, mConnection, packageFile);
+        if (error != null) {
+            throw new Exception(error);
+        }
+    }
+
+    /**
+     * Remembers when the office went back to the pool.
+     */
+    void markIdle() {
+        mIdleSince = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the time in milliseconds since the office went back to the pool
+     */
+    long getIdleTime() {
+        return System.currentTimeMillis() - mIdleSince;
+    }
+
+    /**
+     * @return the connection to the office, an instance of the {@link OfficeHelper#CLASS_CONNECTION} class
+     */
+    Object getConnection() {
+        return mConnection;
+    }
+
+    /**
+     * Waits for the office to accept the connection.
+     *
+     * @param timeout
+     *            the maximum time to wait in milliseconds
+     *
+     * @throws Exception
+     *             if the office couldn't be connected
+     */
+    void connect(long timeout) throws Exception {
+        OfficeClassLoader oooClassLoader = OfficeClassLoader.getClassLoader(mOOo, OfficeLease.class.getClassLoader());
+        Object connection = OfficeHelper.createConnection(oooClassLoader, mOOo);
+        Method connect = connection.getClass().getMethod("connect", String.class); //$NON-NLS-1$
+
+        // The pipe is only created once the office is started
+        long deadline = System.currentTimeMillis() + timeout;
+        while (mConnection == null) {
+            try {
+                connect.invoke(connection, "pipe,name=" + mPipeName); //$NON-NLS-1$
+                mConnection = connection;
+            } catch (InvocationTargetException e) {
+                if (!isRunning() || System.currentTimeMillis() > deadline) {
+                    throw new Exception(Messages.getString("OfficePool.StartError") + mPipeName, //$NON-NLS-1$
+                        e.getCause());
+                }
+                Thread.sleep(CONNECT_RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the connection to the office is still usable
+     */
+    boolean isConnected() {
+        boolean connected = false;
+        if (mConnection != null) {
+            try {
+                Method isConnected = mConnection.getClass().getMethod("isConnected"); //$NON-NLS-1$
+                connected = ((Boolean) isConnected.invoke(mConnection)).booleanValue();
+            } catch (Exception e) {
+                connected = false;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Closes the connection and stops the office.
+     */
+    void terminate() {
+        if (mConnection != null) {
+            try {
+                mConnection.getClass().getMethod("stopOffice").invoke(mConnection); //$NON-NLS-1$
+                mConnection.getClass().getMethod("disconnect").invoke(mConnection); //$NON-NLS-1$
+
+                // Let the office write its profile before killing it
+                mProcess.waitFor(STOP_TIMEOUT, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                PluginLogger.debug("Failed to stop the pooled office: " + e.getMessage()); //$NON-NLS-1$
+            }
+            mConnection = null;
+        }
+        mProcess.destroy();
+    }
+}
@@ -0,0 +1,415 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.office;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+
+/**
+ * Pool of started offices accepting UNO connections, per office installation and user profile.
+ *
+ * <p>
+ * Starting an office takes seconds: the pool keeps the started offices running between their uses. A user of the
+ * pool gets an office through an {@link OfficeLease} and gives it back once done. Two offices can't share the same
+ * user profile: at most one office is started per profile.
+ * </p>
+ *
+ * <p>
+ * The pool is the UNO session shared by the office-backed features of the workspace: the package deployments and the
+ * live launches reuse the same running offices, and the types queries borrow any idle office of the installation
+ * instead of starting one. The offices idle for longer than {@link #IDLE_TIMEOUT} are stopped in the background.
+ * Stopping a running office can take seconds: this is never done while holding the pool lock.
+ * </p>
+ */
+public class OfficePool {
+
+    private static final String PIPE_PREFIX = "ooeclipse_pool_"; //$NON-NLS-1$
+
+    private static final long START_TIMEOUT = 60000;
+
+    /**
+     * Time in milliseconds after which an unused office is stopped.
+     */
+    private static final long IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    private static Map<String, List<OfficeLease>> sIdleOffices = new HashMap<>();
+
+    private static Set<IPath> sUsedProfiles = new HashSet<>();
+
+    private static int sPipeCounter = 0;
+
+    private static Job sReaper;
+
+    /**
+     * Gets an office from the pool, starting one if none is available.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile to use
+     *
+     * @return the lease of a connected office
+     *
+     * @throws Exception
+     *             if no office could be started or connected
+     */
+    public static OfficeLease lease(IOOo ooo, IPath userInstallation) throws Exception {
+        if (userInstallation == null) {
+            throw new IllegalArgumentException("The pooled offices need a user profile"); //$NON-NLS-1$
+        }
+
+        OfficeLease lease = null;
+        String pipeName = null;
+        synchronized (OfficePool.class) {
+            lease = takeIdle(getKey(ooo, userInstallation));
+            if (lease == null) {
+                sUsedProfiles.add(userInstallation);
+                sPipeCounter++;
+                pipeName = PIPE_PREFIX + Integer.toHexString(getKey(ooo, userInstallation).hashCode()) + '_' +
+                    sPipeCounter;
+            }
+        }
+
+        // Start the office outside of the lock: this is long
+        if (lease == null) {
+            try {
+                PluginLogger.debug("Starting a pooled office on pipe " + pipeName); //$NON-NLS-1$
+                Process process = ooo.startOffice(userInstallation,
+                    "--accept=pipe,name=" + pipeName + ";urp;"); //$NON-NLS-1$ //$NON-NLS-2$
+                lease = new OfficeLease(ooo, userInstallation, pipeName, process);
+                lease.connect(START_TIMEOUT);
+            } catch (Exception e) {
+                if (lease != null) {
+                    lease.terminate();
+                }
+                synchronized (OfficePool.class) {
+                    sUsedProfiles.remove(userInstallation);
+                }
+                throw e;
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Gets an already running office from the pool without starting any.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile to use
+     *
+     * @return the lease of a connected office or <code>null</code> if none is idle
+     */
+    public static synchronized OfficeLease leaseIdle(IOOo ooo, IPath userInstallation) {
+        return takeIdle(getKey(ooo, userInstallation));
+    }
+
+    /**
+     * Gets an already running office of an installation without starting any, whatever its user profile.
+     *
+     * <p>
+     * This suits the users that don't depend on the profile content, like the types queries: the office is given
+     * back to the pool for its profile once done.
+     * </p>
+     *
+     * @param ooo
+     *            the office installation
+     *
+     * @return the lease of a connected office or <code>null</code> if none is idle
+     */
+    public static synchronized OfficeLease leaseIdle(IOOo ooo) {
+        OfficeLease lease = null;
+        String prefix = getKey(ooo, null);
+        Iterator<String> keys = new ArrayList<>(sIdleOffices.keySet()).iterator();
+        while (lease == null && keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith(prefix)) {
+                lease = takeIdle(key);
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Starts an office in the background, to have it ready for the next lease.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile to use
+     */
+    public static void prestart(final IOOo ooo, final IPath userInstallation) {
+        synchronized (OfficePool.class) {
+            List<OfficeLease> idle = sIdleOffices.get(getKey(ooo, userInstallation));
+            boolean busy = sUsedProfiles.contains(userInstallation);
+            if (busy || idle != null && !idle.isEmpty()) {
+                return;
+            }
+        }
+
+        Job job = new Job(Messages.getString("OfficePool.PrestartJob")) { //$NON-NLS-1$
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                try {
+                    lease(ooo, userInstallation).release();
+                } catch (Exception e) {
+                    PluginLogger.warning(e.getMessage(), e);
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        job.setSystem(true);
+        job.schedule();
+    }
+
+    /**
+     * Stops the idle offices using a user profile, for example because an other office will be started on it.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile
+     */
+    public static void evict(IOOo ooo, IPath userInstallation) {
+        List<OfficeLease> idle = null;
+        synchronized (OfficePool.class) {
+            idle = sIdleOffices.remove(getKey(ooo, userInstallation));
+        }
+        if (idle != null) {
+            terminate(idle);
+        }
+    }
+
+    /**
+     * Stops all the idle offices.
+     */
+    public static void dispose() {
+        List<OfficeLease> idle = new ArrayList<>();
+        synchronized (OfficePool.class) {
+            if (sReaper != null) {
+                sReaper.cancel();
+                sReaper = null;
+            }
+            for (List<OfficeLease> leases : sIdleOffices.values()) {
+                idle.addAll(leases);
+            }
+            sIdleOffices.clear();
+        }
+        terminate(idle);
+    }
+
+    /**
+     * Gives an office back to the pool. The office is kept only if it can still be used.
+     *
+     * @param lease
+     *            the lease of the office
+     */
+    static void release(OfficeLease lease) {
+        if (lease.isRunning() && lease.isConnected()) {
+            synchronized (OfficePool.class) {
+                String key = getKey(lease.getOOo(), lease.getUserInstallation());
+                List<OfficeLease> idle = sIdleOffices.get(key);
+                if (idle == null) {
+                    idle = new ArrayList<>();
+                    sIdleOffices.put(key, idle);
+                }
+                lease.markIdle();
+                idle.add(lease);
+                scheduleReaper(IDLE_TIMEOUT);
+            }
+        } else {
+            discard(lease);
+        }
+    }
+
+    /**
+     * Stops a leased office instead of keeping it in the pool.
+     *
+     * @param lease
+     *            the lease of the office
+     */
+    static void discard(OfficeLease lease) {
+        terminate(Collections.singletonList(lease));
+    }
+
+    /**
+     * Schedules the stop of the idle offices.
+     *
+     * @param delay
+     *            the time in milliseconds before the next check
+     */
+    private static void scheduleReaper(long delay) {
+        if (sReaper == null) {
+            sReaper = new Job(Messages.getString("OfficePool.ReaperJob")) { //$NON-NLS-1$
+
+                @Override
+                protected IStatus run(IProgressMonitor monitor) {
+                    stopIdleOffices();
+                    return Status.OK_STATUS;
+                }
+            };
+            sReaper.setSystem(true);
+        }
+        // A running reaper may have checked the offices before this one was released
+        int state = sReaper.getState();
+        if (state == Job.NONE || state == Job.RUNNING) {
+            sReaper.schedule(delay);
+        }
+    }
+
+    /**
+     * Stops the offices idle for too long and schedules the next check if offices are still idle.
+     */
+    private static void stopIdleOffices() {
+        List<OfficeLease> expired = new ArrayList<>();
+        long nextCheck = -1;
+        synchronized (OfficePool.class) {
+            for (List<OfficeLease> idle : sIdleOffices.values()) {
+                Iterator<OfficeLease> it = idle.iterator();
+                while (it.hasNext()) {
+                    OfficeLease lease = it.next();
+                    long remaining = IDLE_TIMEOUT - lease.getIdleTime();
+                    if (remaining <= 0) {
+                        it.remove();
+                        expired.add(lease);
+                    } else if (nextCheck < 0 || remaining < nextCheck) {
+                        nextCheck = remaining;
+                    }
+                }
+            }
+        }
+
+        for (OfficeLease lease : expired) {
+            PluginLogger.debug("Stopping idle pooled office on pipe " + lease.getPipeName()); //$NON-NLS-1$
+        }
+        terminate(expired);
+
+        if (nextCheck >= 0) {
+            synchronized (OfficePool.class) {
+                if (sReaper != null) {
+                    sReaper.schedule(nextCheck);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes an office out of the pool.
+     *
+     * @param lease
+     *            the lease of the office
+     */
+    static synchronized void detach(OfficeLease lease) {
+        sUsedProfiles.remove(lease.getUserInstallation());
+    }
+
+    /**
+     * Gets a running idle office. The idle offices which can't be used anymore are stopped: they are already dead or
+     * disconnected, so this is quick.
+     *
+     * @param key
+     *            the key of the office installation and user profile
+     *
+     * @return the idle office or <code>null</code>
+     */
+    private static OfficeLease takeIdle(String key) {
+        OfficeLease lease = null;
+        List<OfficeLease> idle = sIdleOffices.get(key);
+        if (idle != null) {
+            Iterator<OfficeLease> it = idle.iterator();
+            while (lease == null && it.hasNext()) {
+                OfficeLease candidate = it.next();
+                it.remove();
+                if (candidate.isRunning() && candidate.isConnected()) {
+                    lease = candidate;
+                } else {
+                    candidate.terminate();
+                    sUsedProfiles.remove(candidate.getUserInstallation());
+                }
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Stops offices and frees their user profiles. This must not be called with the pool lock: stopping an office can
+     * take seconds.
+     *
+     * @param leases
+     *            the leases of the offices to stop
+     */
+    private static void terminate(List<OfficeLease> leases) {
+        for (OfficeLease lease : leases) {
+            lease.terminate();
+            synchronized (OfficePool.class) {
+                sUsedProfiles.remove(lease.getUserInstallation());
+            }
+        }
+    }
+
+    /**
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile, or <code>null</code>
+     *
+     * @return the key of the pooled offices
+     */
+    private static String getKey(IOOo ooo, IPath userInstallation) {
+        String profile = ""; //$NON-NLS-1$
+        if (userInstallation != null) {
+            profile = userInstallation.toPortableString();
+        }
+        return ooo.getHome() + '@' + profile;
+    }
+}
@@ -0,0 +1,206 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.office;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.libreoffice.ide.eclipse.core.OOEclipsePlugin;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+import org.libreoffice.plugin.core.utils.FileHelper;
+
+/**
+ * Initialized user profiles used to populate the empty profiles of the launches.
+ *
+ * <p>
+ * An office spends a lot of time populating an empty user profile at its first start. A template profile is thus
+ * initialized once per office installation, and copied in the empty profiles. The files are never linked: the
+ * office may rewrite any of them in place, which would change the template and all the other clones.
+ * </p>
+ */
+public class ProfileTemplates {
+
+    private static final String TEMPLATES_FOLDER = "profile_templates"; //$NON-NLS-1$
+
+    private static final String USER_FOLDER = "user"; //$NON-NLS-1$
+
+    private static final String STAMP_FILE = ".template_stamp"; //$NON-NLS-1$
+
+    private static final String LOCK_FILE = ".lock"; //$NON-NLS-1$
+
+    /**
+     * Locks of the templates, by template folder. Only the launches on the same office installation wait for each
+     * other while its template is created.
+     */
+    private static Map<IPath, Object> sLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Populates a user profile from the template of the office installation if it hasn't been initialized yet.
+     *
+     * @param ooo
+     *            the office installation
+     * @param userInstallation
+     *            the user profile to populate
+     */
+    public static void populate(IOOo ooo, IPath userInstallation) {
+        File profile = userInstallation.toFile();
+        if (!new File(profile, USER_FOLDER).isDirectory()) {
+            IPath path = getTemplatePath(ooo);
+            synchronized (sLocks.computeIfAbsent(path, key -> new Object())) {
+                try {
+                    File template = getTemplate(ooo, path);
+                    if (template != null) {
+                        cloneProfile(template.toPath(), profile.toPath());
+                        PluginLogger.info("User profile populated from template: " + profile); //$NON-NLS-1$
+                    }
+                } catch (IOException e) {
+                    String message = Messages.getString("ProfileTemplates.PopulateError"); //$NON-NLS-1$
+                    PluginLogger.warning(message + profile, e);
+                    FileHelper.remove(new File(profile, USER_FOLDER));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param ooo
+     *            the office installation
+     *
+     * @return the template profile folder of the office installation
+     */
+    private static IPath getTemplatePath(IOOo ooo) {
+        return OOEclipsePlugin.getDefault().getStateLocation().append(TEMPLATES_FOLDER)
+            .append(Integer.toHexString(ooo.getHome().hashCode()));
+    }
+
+    /**
+     * Gets the template profile of an office installation, initializing it if needed.
+     *
+     * @param ooo
+     *            the office installation
+     * @param path
+     *            the template profile folder
+     *
+     * @return the template profile folder or <code>null</code> if it couldn't be initialized
+     *
+     * @throws IOException
+     *             if the template stamp can't be read or written
+     */
+    private static File getTemplate(IOOo ooo, IPath path) throws IOException {
+        File template = path.toFile();
+        File stampFile = new File(template, STAMP_FILE);
+
+        // The template has to be created again when the office installation is updated
+        String stamp = getInstallationStamp(ooo);
+        boolean valid = new File(template, USER_FOLDER).isDirectory() && stampFile.isFile()
+            && stamp.equals(new String(Files.readAllBytes(stampFile.toPath()), StandardCharsets.UTF_8));
+
+        if (!valid) {
+            FileHelper.remove(template);
+            template.mkdirs();
+            try {
+                // Start an office on the template profile and stop it once initialized
+                OfficePool.lease(ooo, path).release();
+                OfficePool.evict(ooo, path);
+                Files.write(stampFile.toPath(), stamp.getBytes(StandardCharsets.UTF_8));
+                valid = new File(template, USER_FOLDER).isDirectory();
+            } catch (Exception e) {
+                PluginLogger.warning(Messages.getString("ProfileTemplates.CreationError") + path, e); //$NON-NLS-1$
+            }
+        }
+
+        File result = null;
+        if (valid) {
+            result = template;
+        }
+        return result;
+    }
+
+    /**
+     * Clones a template profile.
+     *
+     * @param template
+     *            the template profile folder
+     * @param profile
+     *            the profile folder to populate
+     *
+     * @throws IOException
+     *             if the template can't be read or the profile written
+     */
+    private static void cloneProfile(final Path template, final Path profile) throws IOException {
+        Files.walkFileTree(template, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(profile.resolve(template.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = file.getFileName().toString();
+                if (!name.equals(STAMP_FILE) && !name.equals(LOCK_FILE)) {
+                    Path target = profile.resolve(template.relativize(file));
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @param ooo
+     *            the office installation
+     *
+     * @return a string changing when the office installation is updated
+     */
+    private static String getInstallationStamp(IOOo ooo) {
+        File program = new File(ooo.getHome(), "program"); //$NON-NLS-1$
+        return ooo.getHome() + '@' + program.lastModified();
+    }
+}
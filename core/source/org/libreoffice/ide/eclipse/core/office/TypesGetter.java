@@ -98,6 +98,7 @@ public class TypesGetter {
     public Map<String, List<InternalUnoType>> getTypes(String root, int mask) {
         Map<String, List<InternalUnoType>> types = new HashMap<>();
 
+        OfficeLease lease = null;
         try {
             // Load the target class and create the getter instance
             OfficeClassLoader oooClassLoader = OfficeClassLoader.getClassLoader(getOOo(),
@@ -105,8 +106,14 @@ public class TypesGetter {
             Class<?> clazz = oooClassLoader.loadClass(CLASSNAME);
             Object getter = clazz.getDeclaredConstructor().newInstance();
 
-            // Set the office
-            Object oooCnx = OfficeHelper.createConnection(oooClassLoader, getOOo());
+            // Set the office: borrow an idle pooled one whatever its profile, but never start one only for this query
+            Object oooCnx = null;
+            lease = OfficePool.leaseIdle(getOOo());
+            if (lease != null) {
+                oooCnx = lease.getConnection();
+            } else {
+                oooCnx = OfficeHelper.createConnection(oooClassLoader, getOOo());
+            }
             String cnxClassName = OfficeHelper.CLASS_CONNECTION;
             Class<?> cnxClazz = oooClassLoader.loadClass(cnxClassName);
 
@@ -133,6 +140,10 @@ public class TypesGetter {
 
         } catch (Throwable e) {
             PluginLogger.error(Messages.getString("TypesGetter.ERROR"), e.getCause()); //$NON-NLS-1$
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
         }
 
         return types;
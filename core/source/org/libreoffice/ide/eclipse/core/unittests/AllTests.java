@@ -54,6 +54,11 @@ public class AllTests {
         suite.addTestSuite(CompositeTest.class);
         suite.addTestSuite(UnoFactoryTest.class);
         suite.addTestSuite(OOoTest.class);
+        suite.addTestSuite(PackageValidatorTest.class);
+        suite.addTestSuite(OfficeLayoutLocatorTest.class);
+        suite.addTestSuite(DirectoryScannerTest.class);
+        suite.addTestSuite(UnoPackageTest.class);
+        suite.addTestSuite(DeployedPackagesTest.class);
         // $JUnit-END$
         return suite;
     }
@@ -0,0 +1,201 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.unittests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.libreoffice.ide.eclipse.core.launch.office.DeployedPackages;
+import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
+import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the skipping of the packages already deployed by a previous launch.
+ *
+ * <p>
+ * These tests need a workspace: they have to be run as plugin tests.
+ * </p>
+ */
+public class DeployedPackagesTest extends TestCase {
+
+    private static final String PROJECT = "deployed-packages-test"; //$NON-NLS-1$
+
+    private static final String DIST = "dist"; //$NON-NLS-1$
+
+    private IProject mProject;
+
+    private IFile mSource;
+
+    private File mPackage;
+
+    private IUnoidlProject mUnoProject;
+
+    private IOOo mOOo;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mProject = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+        mProject.create(null);
+        mProject.open(null);
+        mProject.getFolder("src").create(true, true, null); //$NON-NLS-1$
+        mProject.getFolder(DIST).create(true, true, null);
+        mSource = mProject.getFile("src/Foo.idl"); //$NON-NLS-1$
+        mSource.create(new ByteArrayInputStream(new byte[0]), true, null);
+
+        // The launch builds the package and the office writes its profile without refreshing the project
+        mPackage = new File(mProject.getLocation().toFile(), DIST + "/test.oxt"); //$NON-NLS-1$
+        writePackage("foo.txt"); //$NON-NLS-1$
+        File profile = new File(mProject.getLocation().toFile(), DIST + "/.ooo-debug/user"); //$NON-NLS-1$
+        profile.mkdirs();
+        new File(profile, "registrymodifications.xcu").createNewFile(); //$NON-NLS-1$
+
+        mUnoProject = (IUnoidlProject) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { IUnoidlProject.class }, (proxy, method, args) -> {
+                Object result = null;
+                if ("getName".equals(method.getName())) { //$NON-NLS-1$
+                    result = PROJECT;
+                } else if ("getProject".equals(method.getName())) { //$NON-NLS-1$
+                    result = mProject;
+                } else if ("getDistPath".equals(method.getName())) { //$NON-NLS-1$
+                    result = new Path(DIST);
+                } else if ("getBuildPath".equals(method.getName())) { //$NON-NLS-1$
+                    result = new Path("build"); //$NON-NLS-1$
+                } else if ("getUrdPath".equals(method.getName())) { //$NON-NLS-1$
+                    result = new Path("build/urd"); //$NON-NLS-1$
+                } else if ("getTypesPath".equals(method.getName())) { //$NON-NLS-1$
+                    result = new Path("types.rdb"); //$NON-NLS-1$
+                }
+                return result;
+            });
+        mOOo = (IOOo) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { IOOo.class },
+            (proxy, method, args) -> mProject.getLocation().toPortableString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        DeployedPackages.invalidate(mOOo, null);
+        mProject.delete(true, true, null);
+    }
+
+    /**
+     * Test that a second launch without any change skips the build and the deployment.
+     */
+    public void testUnchangedLaunch() {
+        DeployedPackages.record(mUnoProject, mOOo, null, mPackage);
+
+        assertTrue(DeployedPackages.isUpToDate(mUnoProject, mOOo, null, mPackage));
+        assertTrue(DeployedPackages.isDeployed(mUnoProject, mOOo, null, mPackage));
+    }
+
+    /**
+     * Test that a changed source requires a new build, but not a new deployment if the package content is the same.
+     *
+     * @throws CoreException
+     *             if the source can't be changed
+     */
+    public void testChangedSource() throws CoreException {
+        DeployedPackages.record(mUnoProject, mOOo, null, mPackage);
+        mSource.setContents(new ByteArrayInputStream("module foo {};".getBytes(StandardCharsets.UTF_8)), //$NON-NLS-1$
+            true, false, null);
+
+        assertFalse(DeployedPackages.isUpToDate(mUnoProject, mOOo, null, mPackage));
+        assertTrue(DeployedPackages.isDeployed(mUnoProject, mOOo, null, mPackage));
+    }
+
+    /**
+     * Test that a source created without refreshing the project requires a new build.
+     *
+     * @throws IOException
+     *             if the source can't be created
+     */
+    public void testUnrefreshedSource() throws IOException {
+        DeployedPackages.record(mUnoProject, mOOo, null, mPackage);
+        new File(mProject.getLocation().toFile(), "src/Bar.idl").createNewFile(); //$NON-NLS-1$
+
+        assertFalse(DeployedPackages.isUpToDate(mUnoProject, mOOo, null, mPackage));
+    }
+
+    /**
+     * Test that a package with a different content has to be deployed again.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testChangedPackage() throws IOException {
+        DeployedPackages.record(mUnoProject, mOOo, null, mPackage);
+        writePackage("bar.txt"); //$NON-NLS-1$
+
+        assertFalse(DeployedPackages.isUpToDate(mUnoProject, mOOo, null, mPackage));
+        assertFalse(DeployedPackages.isDeployed(mUnoProject, mOOo, null, mPackage));
+    }
+
+    /**
+     * Writes the package file with a single entry.
+     *
+     * @param entryName
+     *            the name of the package entry
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    private void writePackage(String entryName) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(mPackage))) {
+            out.putNextEntry(new ZipEntry(entryName));
+            out.write(entryName.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.unittests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.libreoffice.plugin.core.utils.DirectoryScanner;
+import org.libreoffice.plugin.core.utils.DirectoryScanner.ScannedEntry;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the walk of the directories to package.
+ */
+public class DirectoryScannerTest extends TestCase {
+
+    private File mRoot;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mRoot = File.createTempFile("scan", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        mRoot.delete();
+        mRoot.mkdirs();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        remove(mRoot);
+    }
+
+    /**
+     * Test that the sequential and parallel walks find the same entries in the same order.
+     *
+     * @throws IOException
+     *             if the tree can't be written or read
+     */
+    public void testParallelOrder() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            String dir = "dir" + (i % 4) + "/sub" + (i % 3); //$NON-NLS-1$ //$NON-NLS-2$
+            createFile(dir + "/file" + i + ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+            createFile("top" + i + ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        List<String> sequential = scan(new DirectoryScanner(null, null), "base"); //$NON-NLS-1$
+        DirectoryScanner parallel = new DirectoryScanner(null, null);
+        parallel.setParallel(true);
+
+        assertEquals(40, sequential.size());
+        assertEquals("base/dir0/sub0/file0.txt", sequential.get(0)); //$NON-NLS-1$
+        assertEquals(sequential, scan(parallel, "base")); //$NON-NLS-1$
+
+        // The parallel visitor order doesn't depend on the scheduling either
+        List<String> visited = visit(parallel);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(visited, visit(parallel));
+        }
+    }
+
+    /**
+     * Test the historical wildcard patterns. The include patterns also apply to the directories.
+     *
+     * @throws IOException
+     *             if the tree can't be written or read
+     */
+    public void testWildcardPatterns() throws IOException {
+        createFile("a.java"); //$NON-NLS-1$
+        createFile("src/b.java"); //$NON-NLS-1$
+        createFile("src/b.java.bak"); //$NON-NLS-1$
+        createFile("readme.txt"); //$NON-NLS-1$
+
+        String[] includes = new String[] { "src", "*.java", "*.bak" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        DirectoryScanner scanner = new DirectoryScanner(includes, new String[] { "*.java.bak" }); //$NON-NLS-1$
+        assertEquals(Arrays.asList("a.java", "src/b.java"), scan(scanner, null)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(scanner.isExcluded("readme.txt")); //$NON-NLS-1$
+        assertFalse(scanner.isExcluded("other/c.java")); //$NON-NLS-1$
+    }
+
+    /**
+     * Test the <code>glob:</code> and <code>regex:</code> patterns.
+     *
+     * @throws IOException
+     *             if the tree can't be written or read
+     */
+    public void testSyntaxPatterns() throws IOException {
+        createFile("a.xml"); //$NON-NLS-1$
+        createFile("doc/b.xml"); //$NON-NLS-1$
+        createFile("doc/c.txt"); //$NON-NLS-1$
+        createFile("doc/sub/d.xml"); //$NON-NLS-1$
+
+        String[] includes = new String[] { "glob:doc", "glob:**.xml" }; //$NON-NLS-1$ //$NON-NLS-2$
+        DirectoryScanner glob = new DirectoryScanner(includes, null);
+        assertEquals(Arrays.asList("a.xml", "doc/b.xml"), scan(glob, null)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        DirectoryScanner regex = new DirectoryScanner(null, new String[] { "regex:doc/[^/]*\\.xml" }); //$NON-NLS-1$
+        assertEquals(Arrays.asList("a.xml", "doc/c.txt", "doc/sub/d.xml"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            scan(regex, null));
+    }
+
+    /**
+     * Test that the excluded directories are never visited.
+     *
+     * @throws IOException
+     *             if the tree can't be written or read
+     */
+    public void testExcludedDirectories() throws IOException {
+        createFile("keep/a.txt"); //$NON-NLS-1$
+        createFile("build/b.txt"); //$NON-NLS-1$
+        createFile("build/sub/c.txt"); //$NON-NLS-1$
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            final List<String> walked = new ArrayList<String>();
+            DirectoryScanner scanner = new DirectoryScanner(null, new String[] { "build" }); //$NON-NLS-1$
+            scanner.setParallel(parallel);
+            scanner.setLeafFilter(dir -> {
+                walked.add(dir.getName());
+                return false;
+            });
+
+            assertEquals(Arrays.asList("keep/a.txt"), scan(scanner, null)); //$NON-NLS-1$
+            assertEquals(Arrays.asList("keep"), walked); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Test that the symbolic links looping on an ancestor directory are skipped.
+     *
+     * @throws IOException
+     *             if the tree can't be written or read
+     */
+    public void testSymbolicLinkLoop() throws IOException {
+        createFile("dir/a.txt"); //$NON-NLS-1$
+        try {
+            Files.createSymbolicLink(new File(mRoot, "dir/loop").toPath(), mRoot.toPath()); //$NON-NLS-1$
+        } catch (UnsupportedOperationException | IOException e) {
+            // No symbolic links on this file system: nothing to test
+            return;
+        }
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            DirectoryScanner scanner = new DirectoryScanner(null, null);
+            scanner.setParallel(parallel);
+            assertEquals(Arrays.asList("dir/a.txt"), scan(scanner, null)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Test that a missing directory is reported in both walks.
+     */
+    public void testMissingRoot() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            DirectoryScanner scanner = new DirectoryScanner(null, null);
+            scanner.setParallel(parallel);
+            try {
+                scanner.scan(new File(mRoot, "missing"), null); //$NON-NLS-1$
+                fail("Missing directory not reported"); //$NON-NLS-1$
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Scans the test directory.
+     *
+     * @param scanner
+     *            the scanner to use
+     * @param pathInArchive
+     *            the path of the test directory in the archive
+     * @return the sorted paths of the entries found
+     *
+     * @throws IOException
+     *             if the directory can't be read
+     */
+    private List<String> scan(DirectoryScanner scanner, String pathInArchive) throws IOException {
+        List<String> paths = new ArrayList<String>();
+        for (ScannedEntry entry : scanner.scan(mRoot, pathInArchive)) {
+            paths.add(entry.getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * Visits the test directory without sorting the entries.
+     *
+     * @param scanner
+     *            the scanner to use
+     * @return the paths of the entries in the visit order
+     *
+     * @throws IOException
+     *             if the directory can't be read
+     */
+    private List<String> visit(DirectoryScanner scanner) throws IOException {
+        final List<String> paths = new ArrayList<String>();
+        scanner.scan(mRoot, null, entry -> paths.add(entry.getPath()));
+        return paths;
+    }
+
+    /**
+     * Creates an empty file in the test directory, and its parent folders.
+     *
+     * @param relativePath
+     *            the path of the file in the test directory
+     *
+     * @throws IOException
+     *             if the file can't be created
+     */
+    private void createFile(String relativePath) throws IOException {
+        File file = new File(mRoot, relativePath);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+    }
+
+    /**
+     * Removes a file or a folder and its content, without following the symbolic links.
+     *
+     * @param file
+     *            the file to remove
+     */
+    private static void remove(File file) {
+        File[] children = file.listFiles();
+        if (children != null && !Files.isSymbolicLink(file.toPath())) {
+            for (File child : children) {
+                remove(child);
+            }
+        }
+        file.delete();
+    }
+}
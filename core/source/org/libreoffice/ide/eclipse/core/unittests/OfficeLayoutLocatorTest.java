@@ -0,0 +1,209 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.unittests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.libreoffice.ide.eclipse.core.internal.model.OfficeLayoutLocator;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the location of the office installation files.
+ */
+public class OfficeLayoutLocatorTest extends TestCase {
+
+    private static final String SOFFICE = "soffice.bin"; //$NON-NLS-1$
+
+    private static final String TYPES_RDB = "offapi.rdb"; //$NON-NLS-1$
+
+    private File mHome;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mHome = File.createTempFile("office", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        mHome.delete();
+        mHome.mkdirs();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        remove(mHome);
+    }
+
+    /**
+     * Test that the files of the standard layouts are found.
+     *
+     * @throws IOException
+     *             if the installation can't be written
+     */
+    public void testStandardLayout() throws IOException {
+        createFile("program/" + SOFFICE); //$NON-NLS-1$
+        createFile("program/types/" + TYPES_RDB); //$NON-NLS-1$
+
+        assertEquals(Arrays.asList(new File(mHome, "program")), //$NON-NLS-1$
+            OfficeLayoutLocator.getContainers(mHome, SOFFICE, TYPES_RDB));
+        assertEquals(Arrays.asList(new File(mHome, "program/types")), //$NON-NLS-1$
+            OfficeLayoutLocator.getContainers(mHome, TYPES_RDB, SOFFICE));
+    }
+
+    /**
+     * Test that the files outside of the standard layouts are searched in the tree, but not too deep nor in the
+     * skipped folders.
+     *
+     * @throws IOException
+     *             if the installation can't be written
+     */
+    public void testTreeWalk() throws IOException {
+        createFile("opt/lib/" + SOFFICE); //$NON-NLS-1$
+        createFile("share/" + TYPES_RDB); //$NON-NLS-1$
+        createFile("a/b/c/d/e/" + TYPES_RDB); //$NON-NLS-1$
+
+        assertEquals(Arrays.asList(new File(mHome, "opt/lib")), //$NON-NLS-1$
+            OfficeLayoutLocator.getContainers(mHome, SOFFICE, TYPES_RDB));
+        assertTrue(OfficeLayoutLocator.getContainers(mHome, TYPES_RDB).isEmpty());
+    }
+
+    /**
+     * Test that the complete lookups also find the copies outside of the standard layouts, while the other lookups
+     * stop at the standard layouts.
+     *
+     * @throws IOException
+     *             if the installation can't be written
+     */
+    public void testCompleteLookup() throws IOException {
+        createFile("program/types/" + TYPES_RDB); //$NON-NLS-1$
+        createFile("sdk/types/" + TYPES_RDB); //$NON-NLS-1$
+        Set<String> complete = new HashSet<String>(Collections.singleton(TYPES_RDB));
+
+        List<File> standard = Arrays.asList(new File(mHome, "program/types")); //$NON-NLS-1$
+        List<File> all = Arrays.asList(new File(mHome, "program/types"), //$NON-NLS-1$
+            new File(mHome, "sdk/types")); //$NON-NLS-1$
+        assertEquals(standard, OfficeLayoutLocator.getContainers(mHome, TYPES_RDB));
+        assertEquals(all, OfficeLayoutLocator.getContainers(mHome, complete, TYPES_RDB));
+
+        // The records of both lookups are kept apart
+        assertEquals(standard, OfficeLayoutLocator.getContainers(mHome, TYPES_RDB));
+    }
+
+    /**
+     * Test that the located folders are reused until the located file is removed.
+     *
+     * @throws IOException
+     *             if the installation can't be written
+     */
+    public void testRecords() throws IOException {
+        createFile("opt/lib/" + SOFFICE); //$NON-NLS-1$
+        new File(mHome, "other/lib").mkdirs(); //$NON-NLS-1$
+
+        List<File> first = Arrays.asList(new File(mHome, "opt/lib")); //$NON-NLS-1$
+        assertEquals(first, OfficeLayoutLocator.getContainers(mHome, SOFFICE));
+
+        // A new copy deep in the tree doesn't change the installation stamp: the record is reused
+        createFile("other/lib/" + SOFFICE); //$NON-NLS-1$
+        assertEquals(first, OfficeLayoutLocator.getContainers(mHome, SOFFICE));
+
+        // The recorded file is gone: the installation is searched again
+        new File(mHome, "opt/lib/" + SOFFICE).delete(); //$NON-NLS-1$
+        assertEquals(Arrays.asList(new File(mHome, "other/lib")), //$NON-NLS-1$
+            OfficeLayoutLocator.getContainers(mHome, SOFFICE));
+    }
+
+    /**
+     * Test that a symbolic link to an already found folder doesn't add a duplicate.
+     *
+     * @throws IOException
+     *             if the installation can't be written
+     */
+    public void testSymbolicLinks() throws IOException {
+        createFile("program/" + SOFFICE); //$NON-NLS-1$
+        File link = new File(mHome, "basis-link"); //$NON-NLS-1$
+        try {
+            Files.createSymbolicLink(link.toPath(), mHome.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            // No symbolic links on this file system: nothing to test
+            return;
+        }
+
+        assertEquals(Arrays.asList(new File(mHome, "program")), //$NON-NLS-1$
+            OfficeLayoutLocator.getContainers(mHome, SOFFICE));
+    }
+
+    /**
+     * Creates an empty file in the installation, and its parent folders.
+     *
+     * @param relativePath
+     *            the path of the file in the installation
+     *
+     * @throws IOException
+     *             if the file can't be created
+     */
+    private void createFile(String relativePath) throws IOException {
+        File file = new File(mHome, relativePath);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+    }
+
+    /**
+     * Removes a file or a folder and its content, without following the symbolic links.
+     *
+     * @param file
+     *            the file to remove
+     */
+    private static void remove(File file) {
+        File[] children = file.listFiles();
+        if (children != null && !Files.isSymbolicLink(file.toPath())) {
+            for (File child : children) {
+                remove(child);
+            }
+        }
+        file.delete();
+    }
+}
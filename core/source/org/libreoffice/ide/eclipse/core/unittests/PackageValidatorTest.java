@@ -0,0 +1,232 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.unittests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.libreoffice.plugin.core.model.PackageValidator;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the UNO package validation.
+ */
+public class PackageValidatorTest extends TestCase {
+
+    private static final String MANIFEST_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + //$NON-NLS-1$
+        "<manifest:manifest xmlns:manifest=\"http://openoffice.org/2001/manifest\">\n"; //$NON-NLS-1$
+    private static final String MANIFEST_END = "</manifest:manifest>\n"; //$NON-NLS-1$
+
+    private static final String COMPONENTS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + //$NON-NLS-1$
+        "<components xmlns=\"http://openoffice.org/2010/uno-components\">\n" + //$NON-NLS-1$
+        "  <component loader=\"com.sun.star.loader.Java2\" uri=\"lib/foo.jar\"/>\n" + //$NON-NLS-1$
+        "</components>\n"; //$NON-NLS-1$
+
+    private File mTmpDir;
+
+    private List<String> mWarnings;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mTmpDir = File.createTempFile("validator", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        mTmpDir.delete();
+        mTmpDir.mkdirs();
+        mWarnings = new ArrayList<String>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        for (File file : mTmpDir.listFiles()) {
+            file.delete();
+        }
+        mTmpDir.delete();
+    }
+
+    /**
+     * Test that a package using all the usual entry kinds is valid.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testValidPackage() throws IOException {
+        File oxt = createPackage(new String[] {
+            "foo.components", "application/vnd.sun.star.uno-components", //$NON-NLS-1$ //$NON-NLS-2$
+            "types.rdb", "application/vnd.sun.star.uno-typelibrary;type=RDB", //$NON-NLS-1$ //$NON-NLS-2$
+            "lib/types.jar", "application/vnd.sun.star.uno-typelibrary;type=Java", //$NON-NLS-1$ //$NON-NLS-2$
+            "Addons.xcu", "application/vnd.sun.star.configuration-data", //$NON-NLS-1$ //$NON-NLS-2$
+            "basic/Lib/", "application/vnd.sun.star.basic-library", //$NON-NLS-1$ //$NON-NLS-2$
+            "help/", "application/vnd.sun.star.help", //$NON-NLS-1$ //$NON-NLS-2$
+        }, "foo.components", COMPONENTS, //$NON-NLS-1$
+            "lib/foo.jar", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "types.rdb", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "lib/types.jar", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "Addons.xcu", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "basic/Lib/script.xlb", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "help/en-US/", null); //$NON-NLS-1$
+
+        List<String> problems = PackageValidator.validate(oxt, mWarnings);
+        assertTrue("Unexpected problems: " + problems, problems.isEmpty()); //$NON-NLS-1$
+        assertTrue("Unexpected warnings: " + mWarnings, mWarnings.isEmpty()); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that the media types unknown to the plugin are only warnings.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testUnknownMediaType() throws IOException {
+        File oxt = createPackage(new String[] {
+            "foo.bin", "application/x-foo", //$NON-NLS-1$ //$NON-NLS-2$
+            "Scripts/", "application/vnd.sun.star.framework-script", //$NON-NLS-1$ //$NON-NLS-2$
+        }, "foo.bin", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "Scripts/beanshell/Foo.bsh", ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+        List<String> problems = PackageValidator.validate(oxt, mWarnings);
+        assertTrue("Unexpected problems: " + problems, problems.isEmpty()); //$NON-NLS-1$
+        assertEquals(1, mWarnings.size());
+    }
+
+    /**
+     * Test that the missing files, libraries and component URIs are reported.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testMissingFiles() throws IOException {
+        File oxt = createPackage(new String[] {
+            "foo.components", "application/vnd.sun.star.uno-components", //$NON-NLS-1$ //$NON-NLS-2$
+            "missing.xcu", "application/vnd.sun.star.configuration-data", //$NON-NLS-1$ //$NON-NLS-2$
+            "basic/Lib", "application/vnd.sun.star.basic-library", //$NON-NLS-1$ //$NON-NLS-2$
+            "help", "application/vnd.sun.star.help", //$NON-NLS-1$ //$NON-NLS-2$
+        }, "foo.components", COMPONENTS, //$NON-NLS-1$
+            "basic/Lib/Module1.xba", ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+        // Missing component URI, xcu file, library index and help folder
+        List<String> problems = PackageValidator.validate(oxt, mWarnings);
+        assertEquals("Unexpected problems: " + problems, 4, problems.size()); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that the file extensions depend on the <code>type</code> parameter of the media type.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testExtensions() throws IOException {
+        File oxt = createPackage(new String[] {
+            "types.jar", "application/vnd.sun.star.uno-typelibrary;type=RDB", //$NON-NLS-1$ //$NON-NLS-2$
+            "types.rdb", "application/vnd.sun.star.uno-typelibrary;type=Java", //$NON-NLS-1$ //$NON-NLS-2$
+            "foo.py", "application/vnd.sun.star.uno-component;type=Python", //$NON-NLS-1$ //$NON-NLS-2$
+            "foo.so", "application/vnd.sun.star.uno-component;type=native;platform=Linux", //$NON-NLS-1$ //$NON-NLS-2$
+        }, "types.jar", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "types.rdb", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "foo.py", "", //$NON-NLS-1$ //$NON-NLS-2$
+            "foo.so", ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+        List<String> problems = PackageValidator.validate(oxt, mWarnings);
+        assertEquals("Unexpected problems: " + problems, 2, problems.size()); //$NON-NLS-1$
+        assertTrue("Unexpected warnings: " + mWarnings, mWarnings.isEmpty()); //$NON-NLS-1$
+    }
+
+    /**
+     * Test that a package without manifest is invalid.
+     *
+     * @throws IOException
+     *             if the package can't be written
+     */
+    public void testMissingManifest() throws IOException {
+        File oxt = new File(mTmpDir, "nomanifest.oxt"); //$NON-NLS-1$
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(oxt))) {
+            out.putNextEntry(new ZipEntry("foo.xcu")); //$NON-NLS-1$
+            out.closeEntry();
+        }
+
+        List<String> problems = PackageValidator.validate(oxt, mWarnings);
+        assertEquals(1, problems.size());
+    }
+
+    /**
+     * Writes a package file.
+     *
+     * @param manifest
+     *            the manifest entries as full path and media type pairs
+     * @param contents
+     *            the archive entries as name and content pairs, a <code>null</code> content for a directory
+     * @return the written package file
+     * @throws IOException
+     *             if the package can't be written
+     */
+    private File createPackage(String[] manifest, String... contents) throws IOException {
+        StringBuilder xml = new StringBuilder(MANIFEST_START);
+        for (int i = 0; i + 1 < manifest.length; i += 2) {
+            xml.append("  <manifest:file-entry manifest:full-path=\"").append(manifest[i]); //$NON-NLS-1$
+            xml.append("\" manifest:media-type=\"").append(manifest[i + 1]); //$NON-NLS-1$
+            xml.append("\"/>\n"); //$NON-NLS-1$
+        }
+        xml.append(MANIFEST_END);
+
+        File oxt = new File(mTmpDir, getName() + ".oxt"); //$NON-NLS-1$
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(oxt))) {
+            out.putNextEntry(new ZipEntry("META-INF/manifest.xml")); //$NON-NLS-1$
+            out.write(xml.toString().getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+
+            for (int i = 0; i + 1 < contents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(contents[i]));
+                if (contents[i + 1] != null) {
+                    out.write(contents[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                out.closeEntry();
+            }
+        }
+        return oxt;
+    }
+}
@@ -0,0 +1,241 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.core.unittests;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.libreoffice.plugin.core.model.UnoPackage;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the entries replacing each other in a UNO package.
+ */
+public class UnoPackageTest extends TestCase {
+
+    private static final String ENTRY = "sub/a.txt"; //$NON-NLS-1$
+
+    private static final String OTHER_ENTRY = "sub/b.txt"; //$NON-NLS-1$
+
+    private File mTmpDir;
+
+    private File mSingle;
+
+    private File mFirstDir;
+
+    private File mSecondDir;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mTmpDir = File.createTempFile("package", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        mTmpDir.delete();
+        mTmpDir.mkdirs();
+
+        mSingle = createFile("single.txt", "single"); //$NON-NLS-1$ //$NON-NLS-2$
+        mFirstDir = new File(mTmpDir, "first"); //$NON-NLS-1$
+        createFile("first/" + ENTRY, "first"); //$NON-NLS-1$ //$NON-NLS-2$
+        createFile("first/" + OTHER_ENTRY, "first"); //$NON-NLS-1$ //$NON-NLS-2$
+        mSecondDir = new File(mTmpDir, "second"); //$NON-NLS-1$
+        createFile("second/" + ENTRY, "second"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        remove(mTmpDir);
+    }
+
+    /**
+     * Test that a directory added after a file replaces it.
+     *
+     * @throws IOException
+     *             if the package can't be written or read
+     */
+    public void testFileBeforeDirectory() throws IOException {
+        for (boolean parallel : new boolean[] { false, true }) {
+            UnoPackage pkg = createPackage(parallel);
+            pkg.addOtherFile(ENTRY, mSingle);
+            pkg.addDirectory(mFirstDir);
+
+            Map<String, String> content = checkEntries(pkg, ENTRY, OTHER_ENTRY);
+            assertEquals("first", content.get(ENTRY)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Test that a file added after a directory replaces its entry.
+     *
+     * @throws IOException
+     *             if the package can't be written or read
+     */
+    public void testDirectoryBeforeFile() throws IOException {
+        for (boolean parallel : new boolean[] { false, true }) {
+            UnoPackage pkg = createPackage(parallel);
+            pkg.addDirectory(mFirstDir);
+            pkg.addOtherFile(ENTRY, mSingle);
+
+            Map<String, String> content = checkEntries(pkg, ENTRY, OTHER_ENTRY);
+            assertEquals("single", content.get(ENTRY)); //$NON-NLS-1$
+            assertEquals("first", content.get(OTHER_ENTRY)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Test that the last added of two overlapping directories provides the common entries.
+     *
+     * @throws IOException
+     *             if the package can't be written or read
+     */
+    public void testOverlappingDirectories() throws IOException {
+        for (boolean parallel : new boolean[] { false, true }) {
+            UnoPackage pkg = createPackage(parallel);
+            pkg.addDirectory(mFirstDir);
+            pkg.addDirectory(mSecondDir);
+
+            Map<String, String> content = checkEntries(pkg, ENTRY, OTHER_ENTRY);
+            assertEquals("second", content.get(ENTRY)); //$NON-NLS-1$
+            assertEquals("first", content.get(OTHER_ENTRY)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Creates an empty package in the test directory.
+     *
+     * @param parallel
+     *            whether the directories are walked in parallel
+     * @return the package
+     */
+    private UnoPackage createPackage(boolean parallel) {
+        UnoPackage pkg = new UnoPackage(new File(mTmpDir, "test" + parallel + ".oxt")); //$NON-NLS-1$ //$NON-NLS-2$
+        pkg.setParallelScan(parallel);
+        return pkg;
+    }
+
+    /**
+     * Checks that the contained names and the written package have each expected entry exactly once.
+     *
+     * @param pkg
+     *            the package to check, closed by this method
+     * @param expected
+     *            the expected content entries
+     * @return the content of the package entries
+     *
+     * @throws IOException
+     *             if the package can't be read
+     */
+    private Map<String, String> checkEntries(UnoPackage pkg, String... expected) throws IOException {
+        List<String> names = pkg.getContainedNames();
+        assertEquals(expected.length, names.size());
+        assertEquals(expected.length, new HashSet<String>(names).size());
+        for (String entry : expected) {
+            assertTrue("Missing entry: " + entry, names.contains(entry)); //$NON-NLS-1$
+        }
+
+        File out = pkg.close();
+        List<String> written = new ArrayList<String>();
+        Map<String, String> content = new HashMap<String, String>();
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(out))) {
+            ZipEntry entry = in.getNextEntry();
+            while (entry != null) {
+                written.add(entry.getName());
+                content.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                entry = in.getNextEntry();
+            }
+        }
+
+        // The mimetype and manifest entries are added to the content
+        assertEquals(expected.length + 2, written.size());
+        assertEquals(written.size(), content.size());
+        for (String entry : expected) {
+            assertTrue("Missing entry: " + entry, content.containsKey(entry)); //$NON-NLS-1$
+        }
+        return content;
+    }
+
+    /**
+     * Creates a file in the test directory, and its parent folders.
+     *
+     * @param relativePath
+     *            the path of the file in the test directory
+     * @param text
+     *            the content of the file
+     * @return the created file
+     *
+     * @throws IOException
+     *             if the file can't be created
+     */
+    private File createFile(String relativePath, String text) throws IOException {
+        File file = new File(mTmpDir, relativePath);
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    /**
+     * Removes a folder and its content.
+     *
+     * @param file
+     *            the file to remove
+     */
+    private static void remove(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                remove(child);
+            }
+        }
+        file.delete();
+    }
+}
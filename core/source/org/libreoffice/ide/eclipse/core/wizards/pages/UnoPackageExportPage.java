@@ -60,6 +60,7 @@ import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.builders.TypesBuilder;
 import org.libreoffice.ide.eclipse.core.gui.PackageContentSelector;
 import org.libreoffice.ide.eclipse.core.i18n.ImagesConstants;
+import org.libreoffice.ide.eclipse.core.launch.office.DeployedPackages;
 import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
 import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
@@ -415,6 +416,8 @@ public class UnoPackageExportPage extends WizardPage {
         public void run() {
             if (mOOo.canManagePackages()) {
                 mOOo.updatePackage(mDest, null);
+                // The launches can't rely on their last deployment in the default profile anymore
+                DeployedPackages.invalidate(mOOo, null);
             }
         }
     }
@@ -51,7 +51,11 @@ public class ManifestModel {
     private static final String EXT_XCU = ".xcu";
     private static final String EXT_RDB = ".rdb";
 
-    private Map<String, FileType> mEntries = new HashMap<>();
+    /**
+     * The entries map the paths to their media type. The media types are interned: only a few distinct values are
+     * shared by all the entries, which keeps the model small even for huge packages.
+     */
+    private Map<String, String> mEntries = new HashMap<>();
 
     /**
      * Add a file or directory to the package.
@@ -269,7 +273,7 @@ public class ManifestModel {
         if (path.endsWith("/")) {
             path = path.substring(0, path.length() - 1);
         }
-        mEntries.put(path, pType);
+        mEntries.put(path, pType.toString().intern());
     }
 
     /**
@@ -305,13 +309,13 @@ public class ManifestModel {
      *             Signals that an I/O exception has occurred.
      */
     public void write(Writer pWriter) throws IOException {
-        Iterator<Entry<String, FileType>> iter = mEntries.entrySet().iterator();
+        Iterator<Entry<String, String>> iter = mEntries.entrySet().iterator();
         String entryPattern = "\t<manifest:file-entry manifest:full-path=\"{0}\"" + " manifest:media-type=\"{1}\"/>\n";
         pWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
         pWriter.write("<manifest:manifest xmlns:manifest=\"http://openoffice.org/2001/manifest\">\n");
         while (iter.hasNext()) {
-            Entry<String, FileType> entry = iter.next();
-            pWriter.write(MessageFormat.format(entryPattern, entry.getKey(), entry.getValue().toString()));
+            Entry<String, String> entry = iter.next();
+            pWriter.write(MessageFormat.format(entryPattern, entry.getKey(), entry.getValue()));
         }
         pWriter.write("</manifest:manifest>\n");
         pWriter.flush();
@@ -0,0 +1,433 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.plugin.core.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Checks the consistency of a UNO package before deploying it.
+ *
+ * <p>
+ * The validation only reads the ZIP central directory and the few XML files describing the package: the
+ * <code>META-INF/manifest.xml</code> file, the <code>.components</code> files and the <code>description.xml</code>
+ * file. Nothing is extracted, this makes it cheap enough to be run before each call to <code>unopkg</code>. The
+ * following problems are reported:
+ * </p>
+ * <ul>
+ * <li>duplicate entries in the archive,</li>
+ * <li>manifest entries pointing to missing files, directories or libraries,</li>
+ * <li>media types not matching the file extension expected for their <code>type</code> parameter,</li>
+ * <li>component URIs pointing to missing files,</li>
+ * <li>files referenced by the package description and missing in the archive.</li>
+ * </ul>
+ *
+ * <p>
+ * The media types unknown to the plugin, like the help or scripting framework ones, are accepted by the office: they
+ * are only reported as warnings.
+ * </p>
+ */
+public class PackageValidator {
+
+    private static final String MANIFEST_ENTRY = "META-INF/manifest.xml";
+    private static final String DESCRIPTION_ENTRY = "description.xml";
+
+    private static final String FILE_ENTRY = "file-entry";
+    private static final String FULL_PATH = "full-path";
+    private static final String MEDIA_TYPE = "media-type";
+    private static final String COMPONENT = "component";
+    private static final String URI = "uri";
+    private static final String HREF = "href";
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    private static final String MIME_HELP = "application/vnd.sun.star.help";
+    private static final String MIME_FRAMEWORK_SCRIPT = "application/vnd.sun.star.framework-script";
+
+    private static final String BASIC_LIBRARY_INDEX = "script.xlb";
+    private static final String DIALOG_LIBRARY_INDEX = "dialog.xlb";
+
+    private Map<String, ZipEntry> mEntries = new HashMap<>();
+    private Set<String> mDirectories = new HashSet<>();
+    private List<String> mProblems = new ArrayList<>();
+    private List<String> mWarnings;
+
+    private ZipFile mZipFile;
+
+    /**
+     * Use the static validate method.
+     *
+     * @param warnings
+     *            the list where to add the warnings
+     */
+    private PackageValidator(List<String> warnings) {
+        mWarnings = warnings;
+    }
+
+    /**
+     * Validates an existing package file.
+     *
+     * @param oxtFile
+     *            the package file to check
+     * @param warnings
+     *            the list where to add the warnings, which don't prevent the package from being deployed
+     * @return the list of the problems found, empty if the package is valid
+     * @throws IOException
+     *             if the file isn't a readable ZIP file
+     */
+    public static List<String> validate(File oxtFile, List<String> warnings) throws IOException {
+        PackageValidator validator = new PackageValidator(warnings);
+        try (ZipFile zipFile = new ZipFile(oxtFile)) {
+            validator.mZipFile = zipFile;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    validator.addDirectory(entry.getName());
+                } else {
+                    validator.addEntry(entry.getName(), entry);
+                }
+            }
+            validator.check(validator.readManifest());
+        }
+        return validator.mProblems;
+    }
+
+    /**
+     * Register an entry of the archive.
+     *
+     * @param name
+     *            the path of the entry in the archive
+     * @param source
+     *            the {@link ZipEntry} to read the entry from
+     */
+    private void addEntry(String name, ZipEntry source) {
+        if (mEntries.put(name, source) != null) {
+            mProblems.add("Duplicate entry in the package: " + name);
+        }
+        addParentDirectories(name, name.length());
+    }
+
+    /**
+     * Register an explicit directory entry of the archive.
+     *
+     * @param name
+     *            the path of the directory entry, ending with a slash
+     */
+    private void addDirectory(String name) {
+        addParentDirectories(name, name.length() - 1);
+        if (name.length() > 1) {
+            mDirectories.add(name.substring(0, name.length() - 1));
+        }
+    }
+
+    /**
+     * Register all the parent directories of an entry.
+     *
+     * @param name
+     *            the path of the entry
+     * @param end
+     *            the position of the end of the entry name, excluding a trailing slash
+     */
+    private void addParentDirectories(String name, int end) {
+        int pos = name.lastIndexOf('/', end - 1);
+        while (pos > 0 && mDirectories.add(name.substring(0, pos))) {
+            pos = name.lastIndexOf('/', pos - 1);
+        }
+    }
+
+    private void check(Map<String, String> manifest) {
+        for (Entry<String, String> entry : manifest.entrySet()) {
+            checkManifestEntry(entry.getKey(), entry.getValue());
+        }
+
+        if (mEntries.containsKey(DESCRIPTION_ENTRY)) {
+            checkReferences(DESCRIPTION_ENTRY, null, HREF);
+        }
+    }
+
+    private void checkManifestEntry(String path, String mediaType) {
+        String mimeType = mediaType;
+        int pos = mediaType.indexOf(';');
+        if (pos != -1) {
+            mimeType = mediaType.substring(0, pos);
+        }
+        mimeType = mimeType.trim();
+
+        if (FileType.MIME_BASIC_LIB.equals(mimeType)) {
+            checkLibrary(path, BASIC_LIBRARY_INDEX);
+        } else if (FileType.MIME_DIALOG_LIB.equals(mimeType)) {
+            checkLibrary(path, DIALOG_LIBRARY_INDEX);
+        } else if (!mEntries.containsKey(path) && !mDirectories.contains(path)) {
+            mProblems.add("Manifest entry pointing to a missing file: " + path);
+        } else if (mEntries.containsKey(path)) {
+            checkFileEntry(path, mediaType, mimeType);
+        } else if (!isKnownType(mimeType)) {
+            mWarnings.add("Unknown media type " + mediaType + " for manifest entry: " + path);
+        }
+    }
+
+    private void checkFileEntry(String path, String mediaType, String mimeType) {
+        String name = path.toLowerCase(Locale.ENGLISH);
+        String type = getTypeParameter(mediaType);
+
+        if (FileType.MIME_UNO_COMPONENTS.equals(mimeType)) {
+            checkReferences(path, COMPONENT, URI);
+        } else if (FileType.MIME_XCU.equals(mimeType)) {
+            checkExtension(path, name, mediaType, ".xcu");
+        } else if (FileType.MIME_XCS.equals(mimeType)) {
+            checkExtension(path, name, mediaType, ".xcs");
+        } else if (FileType.MIME_UNO_TYPES.equals(mimeType) || FileType.MIME_UNO_COMPONENT.equals(mimeType)) {
+            checkExtension(path, name, mediaType, getExpectedExtension(type));
+        } else if (!isKnownType(mimeType)) {
+            mWarnings.add("Unknown media type " + mediaType + " for manifest entry: " + path);
+        }
+    }
+
+    private static boolean isKnownType(String mimeType) {
+        return FileType.MIME_DESCRIPTION.equals(mimeType) || MIME_HELP.equals(mimeType)
+            || MIME_FRAMEWORK_SCRIPT.equals(mimeType) || FileType.MIME_UNO_COMPONENTS.equals(mimeType)
+            || FileType.MIME_XCU.equals(mimeType) || FileType.MIME_XCS.equals(mimeType)
+            || FileType.MIME_UNO_TYPES.equals(mimeType) || FileType.MIME_UNO_COMPONENT.equals(mimeType);
+    }
+
+    /**
+     * Get the value of the <code>type</code> parameter of a media type.
+     *
+     * @param mediaType
+     *            the media type, like <code>application/vnd.sun.star.uno-typelibrary;type=RDB</code>
+     * @return the lower case value of the parameter or <code>null</code> if there is none
+     */
+    private static String getTypeParameter(String mediaType) {
+        String type = null;
+        String[] parts = mediaType.split(";");
+        for (int i = 1; i < parts.length && type == null; i++) {
+            String[] param = parts[i].split("=", 2);
+            if (param.length == 2 && FileType.PARAM_TYPE.equalsIgnoreCase(param[0].trim())) {
+                type = param[1].trim().toLowerCase(Locale.ENGLISH);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Get the file extension expected for a type library or a component.
+     *
+     * @param type
+     *            the lower case value of the <code>type</code> parameter of the media type
+     * @return the expected extension or <code>null</code> if any extension is accepted
+     */
+    private static String getExpectedExtension(String type) {
+        String extension = null;
+        if ("rdb".equals(type)) {
+            extension = ".rdb";
+        } else if ("java".equals(type)) {
+            extension = ".jar";
+        } else if ("python".equals(type)) {
+            extension = ".py";
+        }
+        return extension;
+    }
+
+    private void checkLibrary(String path, String index) {
+        if (!mDirectories.contains(path)) {
+            mProblems.add("Manifest entry pointing to a missing library: " + path);
+        } else if (!mEntries.containsKey(path + "/" + index)) {
+            mProblems.add("Library without " + index + " file: " + path);
+        }
+    }
+
+    private void checkExtension(String path, String name, String mediaType, String extension) {
+        if (extension != null && !name.endsWith(extension)) {
+            mProblems.add("Media type " + mediaType + " doesn't match the file extension: " + path);
+        }
+    }
+
+    /**
+     * Checks that the relative files referenced by an XML file exist in the archive.
+     *
+     * @param path
+     *            the path of the XML file in the archive
+     * @param element
+     *            the local name of the elements holding the references or <code>null</code> for any element
+     * @param attribute
+     *            the local name of the attributes holding the references
+     */
+    private void checkReferences(final String path, final String element, final String attribute) {
+        final String base = getParentPath(path);
+        parse(path, new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if (element == null || element.equals(localName)) {
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        boolean xlink = element != null || XLINK_NS.equals(attributes.getURI(i));
+                        if (xlink && attribute.equals(attributes.getLocalName(i))) {
+                            checkReference(path, base, attributes.getValue(i));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private void checkReference(String path, String base, String reference) {
+        // Only check the references relative to the package: skip the URLs and vnd.sun.star.expand: macros
+        if (!reference.isEmpty() && reference.indexOf(':') == -1) {
+            String target = resolve(base, reference);
+            if (!mEntries.containsKey(target) && !mDirectories.contains(target)) {
+                mProblems.add(path + " references a missing file: " + reference);
+            }
+        }
+    }
+
+    /**
+     * @return the manifest entries mapping the paths to the media types
+     */
+    private Map<String, String> readManifest() {
+        final Map<String, String> manifest = new LinkedHashMap<>();
+        if (!mEntries.containsKey(MANIFEST_ENTRY)) {
+            mProblems.add("Missing " + MANIFEST_ENTRY + " file");
+        } else {
+            parse(MANIFEST_ENTRY, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (FILE_ENTRY.equals(localName)) {
+                        String fullPath = getAttribute(attributes, FULL_PATH);
+                        String mediaType = getAttribute(attributes, MEDIA_TYPE);
+                        if (fullPath != null && mediaType != null && !mediaType.isEmpty() && !fullPath.equals("/")) {
+                            addManifestEntry(manifest, fullPath, mediaType);
+                        }
+                    }
+                }
+            });
+        }
+        return manifest;
+    }
+
+    private void addManifestEntry(Map<String, String> manifest, String fullPath, String mediaType) {
+        String path = fullPath;
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (manifest.put(path, mediaType) != null) {
+            mProblems.add("Duplicate manifest entry: " + path);
+        }
+    }
+
+    private void parse(String path, DefaultHandler handler) {
+        try (InputStream in = open(path)) {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setValidating(false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            SAXParser parser = factory.newSAXParser();
+            parser.parse(in, handler);
+        } catch (IOException | SAXException | ParserConfigurationException e) {
+            mProblems.add("Invalid XML file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private InputStream open(String path) throws IOException {
+        return mZipFile.getInputStream(mEntries.get(path));
+    }
+
+    private static String getAttribute(Attributes attributes, String localName) {
+        String value = null;
+        for (int i = 0; i < attributes.getLength() && value == null; i++) {
+            if (localName.equals(attributes.getLocalName(i))) {
+                value = attributes.getValue(i);
+            }
+        }
+        return value;
+    }
+
+    private static String getParentPath(String path) {
+        String parent = "";
+        int pos = path.lastIndexOf('/');
+        if (pos != -1) {
+            parent = path.substring(0, pos);
+        }
+        return parent;
+    }
+
+    /**
+     * Resolves a relative reference against a directory of the archive.
+     *
+     * @param base
+     *            the directory of the referencing file, empty for the archive root
+     * @param reference
+     *            the relative reference
+     * @return the path of the referenced entry
+     */
+    private static String resolve(String base, String reference) {
+        List<String> segments = new ArrayList<>();
+        String path = reference;
+        if (!base.isEmpty() && !reference.startsWith("/")) {
+            path = base + "/" + reference;
+        }
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                if (!segments.isEmpty()) {
+                    segments.remove(segments.size() - 1);
+                }
+            } else if (!segment.isEmpty() && !segment.equals(".")) {
+                segments.add(segment);
+            }
+        }
+        return String.join("/", segments);
+    }
+}
@@ -44,10 +44,12 @@ import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.CRC32;
@@ -56,9 +58,10 @@ import java.util.zip.ZipOutputStream;
 
 import org.eclipse.core.runtime.IPath;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.plugin.core.utils.DirectoryScanner;
+import org.libreoffice.plugin.core.utils.DirectoryScanner.ScannedEntry;
 import org.libreoffice.plugin.core.utils.FileHelper;
 import org.libreoffice.plugin.core.utils.FilenameUtils;
-import org.libreoffice.plugin.core.utils.StringUtils;
 import org.libreoffice.plugin.core.utils.ZipContent;
 
 /**
@@ -85,19 +88,43 @@ public class UnoPackage {
     private static final String BASIC_LIBRARY_INDEX = "script.xlb";
     private static final String DIALOG_LIBRARY_INDEX = "dialog.xlb";
 
+    private static final String MANIFEST_ENTRY = "META-INF/manifest.xml";
+
     private static final String MIMETYPE = "mimetype";
     private static final String MIMETYPE_CONTENT = "application/vnd.openofficeorg.extension";
 
     private File mDestination;
     private boolean mBuilding = false;
 
-    private Map<String, ZipContent> mZipEntries = new HashMap<>();
+    private Map<String, QueuedContent> mZipEntries = new HashMap<>();
     private ManifestModel mManifest;
     private ArrayList<File> mToClean = new ArrayList<File>();
 
     private File mReadManifestFile;
     private File mCopyManifestFileTo;
 
+    private boolean mParallelScan = false;
+
+    /**
+     * The directories are only walked when the package content is visited or written.
+     */
+    private List<PendingDirectory> mPendingDirectories = new ArrayList<>();
+
+    /**
+     * The number of files and directories queued so far, used to know which one was added last.
+     */
+    private int mAdditions = 0;
+
+    /**
+     * Whether the manifest model already knows the files of all the pending directories.
+     */
+    private boolean mManifestComplete = true;
+
+    /**
+     * The visitor receiving the entries while walking the pending directories, <code>null</code> otherwise.
+     */
+    private IPackageEntryVisitor mVisitor;
+
     /**
      * Create a new package object.
      *
@@ -149,12 +176,21 @@ public class UnoPackage {
     public void dispose() {
         mDestination = null;
         mZipEntries.clear();
+        mPendingDirectories.clear();
     }
 
     /**
      * @return the manifest.xml model contained in the package
      */
     public ManifestModel getManifestModel() {
+        // The entries of the pending directories are needed to complete the manifest
+        if (!mManifestComplete) {
+            for (PendingDirectory pending : mPendingDirectories) {
+                visitPendingDirectory(pending, (entryName, file) -> {
+                });
+            }
+            mManifestComplete = true;
+        }
         return mManifest;
     }
 
@@ -184,6 +220,20 @@ public class UnoPackage {
         }
     }
 
+    /**
+     * Set whether the directories added to the package are walked in parallel.
+     *
+     * <p>
+     * This is worth enabling for directories containing thousands of files, the resulting package is the same.
+     * </p>
+     *
+     * @param parallel
+     *            <code>true</code> to walk the directories using the fork-join pool
+     */
+    public void setParallelScan(boolean parallel) {
+        mParallelScan = parallel;
+    }
+
     /**
      * Adds the content of the given (root) file or directory.
      *
@@ -298,51 +348,37 @@ public class UnoPackage {
             addBasicLibraryFile(pathname, directory, includes, excludes);
         } else if (isDialogLibrary(directory)) {
             addDialogLibraryFile(pathname, directory, includes, excludes);
+        } else if (mVisitor == null) {
+            // Do not change the extension from now
+            initializeOutput();
+
+            addPendingDirectory(new PendingDirectory(pathname, directory, includes, excludes, false));
         } else {
-            for (File child : directory.listFiles()) {
-                String path = child.getName();
-                if (StringUtils.isNotEmpty(pathname)) {
-                    path = FilenameUtils.normalize(pathname + "/" + path);
-                }
-                if (shouldBeExcluded(path, includes, excludes)) {
-                    continue;
-                }
-                if (child.isFile()) {
-                    addFile(path, child);
+            DirectoryScanner scanner = createScanner(includes, excludes);
+            scanner.setLeafFilter(dir -> isBasicLibrary(dir) || isDialogLibrary(dir));
+            scan(scanner, directory, pathname, entry -> {
+                if (entry.isDirectory()) {
+                    addDirectory(entry.getPath() + "/", entry.getFile(), includes, excludes);
                 } else {
-                    addDirectory(path + "/", child, includes, excludes);
+                    addFile(entry.getPath(), entry.getFile());
                 }
-            }
+            });
         }
     }
 
-    private static boolean shouldBeExcluded(final String path, final String[] includes, final String[] excludes) {
-        boolean excluded = false;
-        if (includes.length > 0 && !match(path, includes)) {
-            System.out.println(path + " will be not included");
-            excluded = true;
-        } else if (match(path, excludes)) {
-            System.out.println(path + " will be excluded");
-            excluded = true;
-        }
-        return excluded;
+    private DirectoryScanner createScanner(final String[] includes, final String[] excludes) {
+        DirectoryScanner scanner = new DirectoryScanner(includes, excludes);
+        scanner.setParallel(mParallelScan);
+        return scanner;
     }
 
-    private static boolean match(final String fileName, final String[] filePatterns) {
-        boolean matched = false;
-        for (int i = 0; i < filePatterns.length; i++) {
-            if (match(fileName, filePatterns[i])) {
-                matched = true;
-                break;
-            }
+    private static void scan(DirectoryScanner scanner, File directory, String pathInArchive,
+        Consumer<ScannedEntry> visitor) {
+        try {
+            scanner.scan(directory, pathInArchive, visitor);
+        } catch (IOException e) {
+            PluginLogger.error("Can't read directory " + directory, e);
         }
-        return matched;
-    }
-
-    private static boolean match(final String fileName, final String filePattern) {
-        String pattern = filePattern.replace("*", ".*");
-        pattern = pattern.replace(".*.*/", ".*/");
-        return fileName.matches(pattern);
     }
 
     /**
@@ -690,15 +726,15 @@ public class UnoPackage {
                 zipOut.putNextEntry(entry);
                 zipOut.write(mimetype);
 
-                // Add the content files to the zip
-                Iterator<ZipContent> entries = mZipEntries.values().iterator();
-                while (entries.hasNext()) {
-                    ZipContent content = entries.next();
-                    content.writeContentToZip(zipOut);
-                }
+                // Add the content files to the zip, the directories are written while they are walked
+                final boolean[] hasManifest = new boolean[] { false };
+                visitContents((entryName, file) -> {
+                    hasManifest[0] |= MANIFEST_ENTRY.equals(entryName);
+                    new ZipContent(entryName, file).writeContentToZip(zipOut);
+                });
 
                 // Add the manifest to the zip (if not already inside)
-                if (!mZipEntries.containsKey("META-INF/manifest.xml")) {
+                if (!hasManifest[0]) {
                     addManifestFile(zipOut);
                 }
 
@@ -730,7 +766,7 @@ public class UnoPackage {
                 FileHelper.copyFile(manifestFile, mCopyManifestFileTo, true);
             }
         }
-        ZipContent manifest = new ZipContent("META-INF/manifest.xml", manifestFile);
+        ZipContent manifest = new ZipContent(MANIFEST_ENTRY, manifestFile);
         manifest.writeContentToZip(zipOut);
     }
 
@@ -746,14 +782,59 @@ public class UnoPackage {
         return manifest;
     }
 
+    /**
+     * Passes all the entries queued for addition to the package to a visitor.
+     *
+     * <p>
+     * The added directories are walked during the visit and their entries are passed to the visitor as soon as they
+     * are found: the directories content is never kept in memory. Prefer this method to
+     * {@link #getContainedFiles()} and {@link #getContainedNames()} for packages with a lot of files.
+     * </p>
+     *
+     * <p>
+     * Each entry is visited only once: when several files have been added with the same path in the package, the last
+     * added one is used. Only the directories overlapping a previously added directory have their entry names kept in
+     * memory to find these duplicates.
+     * </p>
+     *
+     * @param visitor
+     *            the visitor of the entries
+     */
+    public void visitContents(IPackageEntryVisitor visitor) {
+        final Map<String, Integer> overlapping = getOverlappingEntries();
+        final Set<String> replaced = new HashSet<>();
+
+        for (PendingDirectory pending : mPendingDirectories) {
+            final int order = pending.mOrder;
+            visitPendingDirectory(pending, (entryName, file) -> {
+                QueuedContent queued = mZipEntries.get(entryName);
+                Integer overlap = overlapping.get(entryName);
+                if (queued != null && queued.mOrder < order) {
+                    replaced.add(entryName);
+                }
+                boolean replacedLater = queued != null && queued.mOrder > order;
+                replacedLater |= overlap != null && overlap > order;
+                if (!replacedLater) {
+                    visitor.visit(entryName, file);
+                }
+            });
+        }
+        mManifestComplete = true;
+
+        for (QueuedContent queued : mZipEntries.values()) {
+            String entryName = queued.mContent.getEntryName();
+            if (!replaced.contains(entryName)) {
+                visitor.visit(entryName, queued.mContent.getFile());
+            }
+        }
+    }
+
     /**
      * @return a list of the files that are already queued for addition to the package.
      */
     public List<File> getContainedFiles() {
-        ArrayList<File> files = new ArrayList<File>(mZipEntries.size());
-        for (ZipContent content : mZipEntries.values()) {
-            files.add(content.getFile());
-        }
+        final List<File> files = new ArrayList<File>();
+        visitContents((entryName, file) -> files.add(file));
         return files;
     }
 
@@ -763,7 +844,9 @@ public class UnoPackage {
      * @return the contained names
      */
     public List<String> getContainedNames() {
-        return new ArrayList<String>(mZipEntries.keySet());
+        final List<String> names = new ArrayList<String>();
+        visitContents((entryName, file) -> names.add(entryName));
+        return names;
     }
 
     /**
@@ -819,24 +902,84 @@ public class UnoPackage {
             return;
         }
 
-        if (file.isDirectory()) {
+        if (file.isDirectory() && mVisitor == null) {
+            addPendingDirectory(new PendingDirectory(relativePath, file, includes, excludes, true));
+        } else if (file.isDirectory()) {
             // Add all the children
-            try {
-                for (File child : file.listFiles()) {
-                    String path = FilenameUtils.normalize(relativePath + "/" + child.getName());
-                    if (shouldBeExcluded(path, includes, excludes)) {
-                        continue;
-                    }
-                    addZipContent(path, child);
-                }
-            } catch (Exception e) {
-            }
+            DirectoryScanner scanner = createScanner(includes, excludes);
+            scan(scanner, file, relativePath, entry -> addZipContent(entry.getPath(), entry.getFile()));
         } else {
             String zipPath = FileHelper.separatorsToUnix(relativePath);
             PluginLogger.debug("Adding " + zipPath + " to oxt package");
-            ZipContent content = new ZipContent(zipPath, file);
-            mZipEntries.put(relativePath, content);
+            if (mVisitor == null) {
+                mZipEntries.put(zipPath, new QueuedContent(new ZipContent(zipPath, file), mAdditions++));
+            } else {
+                mVisitor.visit(zipPath, file);
+            }
+        }
+    }
+
+    /**
+     * Queues a directory to walk later.
+     *
+     * @param pending
+     *            the directory to queue
+     */
+    private void addPendingDirectory(PendingDirectory pending) {
+        pending.mOrder = mAdditions++;
+        mPendingDirectories.add(pending);
+        mManifestComplete = false;
+    }
+
+    /**
+     * Walks a pending directory, passing its entries to the visitor.
+     *
+     * <p>
+     * The files are classified while walking: the manifest model is completed at the same time.
+     * </p>
+     *
+     * @param pending
+     *            the directory to walk
+     * @param visitor
+     *            the visitor of the entries
+     */
+    private void visitPendingDirectory(PendingDirectory pending, IPackageEntryVisitor visitor) {
+        IPackageEntryVisitor previous = mVisitor;
+        mVisitor = visitor;
+        try {
+            if (pending.mRaw) {
+                addZipContent(pending.mPath, pending.mDirectory, pending.mIncludes, pending.mExcludes);
+            } else {
+                addDirectory(pending.mPath, pending.mDirectory, pending.mIncludes, pending.mExcludes);
+            }
+        } finally {
+            mVisitor = previous;
+        }
+    }
+
+    /**
+     * Collects the entries of the pending directories that may replace the entries of a previously added directory.
+     *
+     * <p>
+     * Only the directories whose path in the package overlaps the path of a previously added directory are walked:
+     * the result is empty in the usual case.
+     * </p>
+     *
+     * @return the entry names mapped to the order of the last directory containing them
+     */
+    private Map<String, Integer> getOverlappingEntries() {
+        final Map<String, Integer> entries = new HashMap<>();
+        for (int i = 1; i < mPendingDirectories.size(); i++) {
+            final PendingDirectory pending = mPendingDirectories.get(i);
+            boolean overlaps = false;
+            for (int j = 0; j < i && !overlaps; j++) {
+                overlaps = pending.overlaps(mPendingDirectories.get(j));
+            }
+            if (overlaps) {
+                visitPendingDirectory(pending, (entryName, file) -> entries.put(entryName, pending.mOrder));
+            }
         }
+        return entries;
     }
 
     /**
@@ -879,4 +1022,88 @@ public class UnoPackage {
         }
         return result;
     }
+
+    /**
+     * A directory added to the package, but not walked yet.
+     */
+    private static class PendingDirectory {
+
+        private String mPath;
+        private File mDirectory;
+        private String[] mIncludes;
+        private String[] mExcludes;
+        private boolean mRaw;
+        private int mOrder;
+
+        /**
+         * Constructor.
+         *
+         * @param path
+         *            the path of the directory in the package
+         * @param directory
+         *            the directory to walk
+         * @param includes
+         *            the includes
+         * @param excludes
+         *            the excludes
+         * @param raw
+         *            <code>true</code> to add the files without looking at their type
+         */
+        PendingDirectory(String path, File directory, String[] includes, String[] excludes, boolean raw) {
+            mPath = path;
+            mDirectory = directory;
+            mIncludes = includes;
+            mExcludes = excludes;
+            mRaw = raw;
+        }
+
+        /**
+         * Checks whether the entries of two directories may have the same path in the package.
+         *
+         * @param other
+         *            the other directory
+         * @return <code>true</code> if one of the directories is in the other one in the package
+         */
+        boolean overlaps(PendingDirectory other) {
+            String path = getDirectoryPath(mPath);
+            String otherPath = getDirectoryPath(other.mPath);
+            return path.startsWith(otherPath) || otherPath.startsWith(path);
+        }
+
+        /**
+         * @return the path of a directory in the package, ending with a slash unless it is the package root
+         */
+        private static String getDirectoryPath(String path) {
+            String dirPath = "";
+            if (path != null) {
+                dirPath = FilenameUtils.separatorsToUnix(path);
+            }
+            if (!dirPath.isEmpty() && !dirPath.endsWith("/")) {
+                dirPath += "/";
+            }
+            return dirPath;
+        }
+    }
+
+    /**
+     * A file added to the package.
+     */
+    private static class QueuedContent {
+
+        private ZipContent mContent;
+        private int mOrder;
+
+        /**
+         * Constructor.
+         *
+         * @param content
+         *            the ZIP content of the file
+         * @param order
+         *            the position of the file in the additions to the package
+         */
+        QueuedContent(ZipContent content, int order) {
+            mContent = content;
+            mOrder = order;
+        }
+    }
 }
@@ -0,0 +1,474 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.plugin.core.utils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Walks a directory tree and collects the files to put in a package.
+ *
+ * <p>
+ * The include and exclude patterns are compiled only once into {@link PathMatcher}s and are matched against the path
+ * of the entries in the archive. Patterns prefixed by <code>glob:</code> or <code>regex:</code> use the
+ * {@link java.nio.file.FileSystem#getPathMatcher(String)} syntax, any other pattern uses the historical wildcard
+ * syntax where <code>*</code> matches any sequence of characters. Excluded directories are pruned and never visited.
+ * </p>
+ *
+ * <p>
+ * The tree can optionally be walked in parallel using the common fork-join pool: the directories are listed
+ * concurrently, but the entries are still passed to the visitor one after the other in the calling thread. Only the
+ * listings of the directories being walked are kept in memory, not the whole tree.
+ * </p>
+ */
+public class DirectoryScanner {
+
+    private static final String GLOB_SYNTAX = "glob:";
+    private static final String REGEX_SYNTAX = "regex:";
+
+    private PathMatcher[] mIncludes;
+    private PathMatcher[] mExcludes;
+    private FileFilter mLeafFilter;
+    private boolean mParallel = false;
+
+    /**
+     * Constructor.
+     *
+     * @param includes
+     *            the patterns of the paths to include. An empty array includes everything.
+     * @param excludes
+     *            the patterns of the paths to exclude.
+     */
+    public DirectoryScanner(String[] includes, String[] excludes) {
+        mIncludes = compile(includes);
+        mExcludes = compile(excludes);
+    }
+
+    /**
+     * @param parallel
+     *            <code>true</code> to walk the directories using the fork-join pool.
+     */
+    public void setParallel(boolean parallel) {
+        mParallel = parallel;
+    }
+
+    /**
+     * Set the filter telling which directories have to be reported as a whole instead of being walked.
+     *
+     * @param filter
+     *            the filter accepting the leaf directories, or <code>null</code> to walk all directories.
+     */
+    public void setLeafFilter(FileFilter filter) {
+        mLeafFilter = filter;
+    }
+
+    /**
+     * Checks whether a path is filtered out by the include and exclude patterns.
+     *
+     * @param path
+     *            the path of the entry in the archive
+     * @return <code>true</code> if the path has to be excluded from the package
+     */
+    public boolean isExcluded(String path) {
+        Path entry = Paths.get(path);
+        boolean excluded = false;
+        if (mIncludes.length > 0 && !match(entry, mIncludes)) {
+            excluded = true;
+        } else if (match(entry, mExcludes)) {
+            excluded = true;
+        }
+        return excluded;
+    }
+
+    /**
+     * Collects the content of a directory.
+     *
+     * <p>
+     * The directory itself isn't checked against the patterns nor the leaf filter.
+     * </p>
+     *
+     * @param directory
+     *            the directory to scan
+     * @param pathInArchive
+     *            the path of the directory in the archive
+     * @return the files and leaf directories found, sorted by path
+     * @throws IOException
+     *             if the directory can't be read
+     */
+    public List<ScannedEntry> scan(File directory, String pathInArchive) throws IOException {
+        List<ScannedEntry> entries = new ArrayList<>();
+        scan(directory, pathInArchive, entries::add);
+        Collections.sort(entries, Comparator.comparing(ScannedEntry::getPath));
+        return entries;
+    }
+
+    /**
+     * Passes the content of a directory to a visitor as soon as it is found.
+     *
+     * <p>
+     * Unlike {@link #scan(File, String)}, the entries aren't kept in memory nor sorted. The visitor is always called
+     * from the calling thread, even when the parallel walk is enabled.
+     * </p>
+     *
+     * @param directory
+     *            the directory to scan
+     * @param pathInArchive
+     *            the path of the directory in the archive
+     * @param visitor
+     *            the consumer of the files and leaf directories found
+     * @throws IOException
+     *             if the directory can't be read
+     */
+    public void scan(File directory, String pathInArchive, Consumer<ScannedEntry> visitor) throws IOException {
+        String basePath = getBasePath(pathInArchive);
+        if (mParallel) {
+            try {
+                Path root = directory.toPath();
+                List<Object> ancestors = Collections.singletonList(
+                    getVisitKey(root, Files.readAttributes(root, BasicFileAttributes.class)));
+                consume(ForkJoinPool.commonPool().invoke(new ScanTask(root, basePath, ancestors, true)), visitor);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            walk(directory.toPath(), basePath, visitor);
+        }
+    }
+
+    /**
+     * Passes the entries of a directory listing and of its sub-directories to the visitor.
+     *
+     * <p>
+     * The sub-directories are all listed in parallel before visiting the entries, then their listings are visited
+     * depth first. Only the listings of the sub-directories of the directories being visited are kept in memory.
+     * </p>
+     *
+     * @param listing
+     *            the listing of the directory
+     * @param visitor
+     *            the consumer of the entries
+     */
+    private static void consume(Listing listing, Consumer<ScannedEntry> visitor) {
+        for (ScanTask subtask : listing.mSubtasks) {
+            subtask.fork();
+        }
+        listing.mEntries.forEach(visitor);
+        for (ScanTask subtask : listing.mSubtasks) {
+            consume(subtask.join(), visitor);
+        }
+    }
+
+    private static String getBasePath(String pathInArchive) {
+        String basePath = "";
+        if (pathInArchive != null) {
+            basePath = FilenameUtils.separatorsToUnix(pathInArchive);
+        }
+        return basePath;
+    }
+
+    /**
+     * Walks the tree sequentially.
+     *
+     * @param root
+     *            the directory to walk
+     * @param basePath
+     *            the path of the directory in the archive
+     * @param entries
+     *            the consumer of the entries found
+     * @throws IOException
+     *             if the root directory can't be read
+     */
+    private void walk(final Path root, final String basePath, final Consumer<ScannedEntry> entries)
+        throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+            new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    FileVisitResult result = FileVisitResult.CONTINUE;
+                    if (!dir.equals(root)) {
+                        String path = getChildPath(basePath, root.relativize(dir));
+                        if (isExcluded(path)) {
+                            result = FileVisitResult.SKIP_SUBTREE;
+                        } else if (isLeaf(dir.toFile())) {
+                            entries.accept(new ScannedEntry(path, dir.toFile(), true));
+                            result = FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    return result;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String path = getChildPath(basePath, root.relativize(file));
+                    if (attrs.isRegularFile() && !isExcluded(path)) {
+                        entries.accept(new ScannedEntry(path, file.toFile(), false));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    if (file.equals(root)) {
+                        throw exc;
+                    }
+                    // Unreadable entries and symbolic link loops are silently skipped
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+    }
+
+    private boolean isLeaf(File dir) {
+        return mLeafFilter != null && mLeafFilter.accept(dir);
+    }
+
+    private static String getChildPath(String parentPath, Path relative) {
+        String path = FilenameUtils.separatorsToUnix(relative.toString());
+        if (StringUtils.isNotEmpty(parentPath)) {
+            path = FilenameUtils.normalize(parentPath + "/" + path);
+        }
+        return path;
+    }
+
+    /**
+     * Computes the key identifying a directory in order to detect the symbolic links loops.
+     */
+    private static Object getVisitKey(Path dir, BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        if (key == null) {
+            try {
+                key = dir.toRealPath();
+            } catch (IOException e) {
+                key = dir.toAbsolutePath().normalize();
+            }
+        }
+        return key;
+    }
+
+    private static boolean match(Path path, PathMatcher[] matchers) {
+        boolean matched = false;
+        for (int i = 0; i < matchers.length && !matched; i++) {
+            matched = matchers[i].matches(path);
+        }
+        return matched;
+    }
+
+    private static PathMatcher[] compile(String[] patterns) {
+        PathMatcher[] matchers = new PathMatcher[0];
+        if (patterns != null) {
+            matchers = new PathMatcher[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = compile(patterns[i]);
+            }
+        }
+        return matchers;
+    }
+
+    private static PathMatcher compile(String pattern) {
+        PathMatcher matcher;
+        if (pattern.startsWith(GLOB_SYNTAX) || pattern.startsWith(REGEX_SYNTAX)) {
+            matcher = FileSystems.getDefault().getPathMatcher(pattern);
+        } else {
+            String regex = pattern.replace("*", ".*");
+            regex = regex.replace(".*.*/", ".*/");
+            final Pattern compiled = Pattern.compile(regex);
+            matcher = path -> compiled.matcher(FilenameUtils.separatorsToUnix(path.toString())).matches();
+        }
+        return matcher;
+    }
+
+    /**
+     * Fork-join task listing one directory. The tasks listing the child directories are created, but only forked when
+     * the listing is consumed.
+     */
+    private class ScanTask extends RecursiveTask<Listing> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path mDirectory;
+        private final String mPath;
+        private final List<Object> mAncestors;
+        private final boolean mRoot;
+
+        ScanTask(Path directory, String path, List<Object> ancestors, boolean root) {
+            mDirectory = directory;
+            mPath = path;
+            mAncestors = ancestors;
+            mRoot = root;
+        }
+
+        @Override
+        protected Listing compute() {
+            List<ScannedEntry> entries = new ArrayList<>();
+            List<ScanTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(mDirectory)) {
+                for (Path child : children) {
+                    String path = getChildPath(mPath, child.getFileName());
+                    if (!isExcluded(path)) {
+                        visit(child, path, entries, subtasks);
+                    }
+                }
+            } catch (IOException e) {
+                if (mRoot) {
+                    throw new UncheckedIOException(e);
+                }
+                // Unreadable directories are silently skipped
+            }
+
+            // Sort each listing so that the walk order doesn't depend on the file system
+            Collections.sort(entries, Comparator.comparing(ScannedEntry::getPath));
+            Collections.sort(subtasks, Comparator.comparing(task -> task.mPath));
+            return new Listing(entries, subtasks);
+        }
+
+        private void visit(Path child, String path, List<ScannedEntry> entries, List<ScanTask> subtasks) {
+            // Broken symbolic links have no attributes and are silently skipped, like in the sequential walk
+            BasicFileAttributes attrs = readAttributes(child);
+            if (attrs != null && attrs.isRegularFile()) {
+                entries.add(new ScannedEntry(path, child.toFile(), false));
+            } else if (attrs != null && attrs.isDirectory()) {
+                visitDirectory(child, path, getVisitKey(child, attrs), entries, subtasks);
+            }
+        }
+
+        private void visitDirectory(Path child, String path, Object key, List<ScannedEntry> entries,
+            List<ScanTask> subtasks) {
+            // Skip the symbolic links looping on one of the ancestors, like Files.walkFileTree() does
+            if (!mAncestors.contains(key)) {
+                if (isLeaf(child.toFile())) {
+                    entries.add(new ScannedEntry(path, child.toFile(), true));
+                } else {
+                    List<Object> ancestors = new ArrayList<>(mAncestors);
+                    ancestors.add(key);
+                    subtasks.add(new ScanTask(child, path, ancestors, false));
+                }
+            }
+        }
+
+        private BasicFileAttributes readAttributes(Path child) {
+            BasicFileAttributes attrs = null;
+            try {
+                attrs = Files.readAttributes(child, BasicFileAttributes.class);
+            } catch (IOException e) {
+                attrs = null;
+            }
+            return attrs;
+        }
+    }
+
+    /**
+     * The content of one directory: its files and leaf directories, and the tasks listing its other directories.
+     */
+    private static class Listing {
+
+        private final List<ScannedEntry> mEntries;
+        private final List<ScanTask> mSubtasks;
+
+        Listing(List<ScannedEntry> entries, List<ScanTask> subtasks) {
+            mEntries = entries;
+            mSubtasks = subtasks;
+        }
+    }
+
+    /**
+     * An entry found by the scanner: either a file or a leaf directory.
+     */
+    public static class ScannedEntry {
+
+        private String mPath;
+        private File mFile;
+        private boolean mDirectory;
+
+        /**
+         * Constructor.
+         *
+         * @param path
+         *            the path of the entry in the archive
+         * @param file
+         *            the file on the disk
+         * @param directory
+         *            whether the entry is a leaf directory
+         */
+        public ScannedEntry(String path, File file, boolean directory) {
+            mPath = path;
+            mFile = file;
+            mDirectory = directory;
+        }
+
+        /**
+         * @return the path of the entry in the archive
+         */
+        public String getPath() {
+            return mPath;
+        }
+
+        /**
+         * @return the file on the disk
+         */
+        public File getFile() {
+            return mFile;
+        }
+
+        /**
+         * @return <code>true</code> if the entry is a leaf directory
+         */
+        public boolean isDirectory() {
+            return mDirectory;
+        }
+    }
+}
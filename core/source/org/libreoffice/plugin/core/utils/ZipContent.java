@@ -74,6 +74,13 @@ public class ZipContent {
         return mResource;
     }
 
+    /**
+     * @return the name of the entry in the ZIP file
+     */
+    public String getEntryName() {
+        return mEntryName;
+    }
+
     /**
      * Write the ZIP entry to the given Zip output stream.
      *
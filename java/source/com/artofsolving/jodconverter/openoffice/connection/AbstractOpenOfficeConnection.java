@@ -39,21 +39,42 @@ import com.sun.star.uno.XComponentContext;
 public abstract class AbstractOpenOfficeConnection implements OpenOfficeConnection, XEventListener {
 
     private String mConnectionString;
-    private XComponent mBridgeComponent;
-    private XMultiComponentFactory mServiceManager;
-    private XComponentContext mComponentContext;
-    private XBridge mBridge;
-    private boolean mConnected = false;
-    private boolean mExpectingDisconnection = false;
+
+    /*
+     * The bridge state is written under the connection lock, but read without it by isAlive() and the getters.
+     * The connected flag is also cleared from the bridge thread.
+     */
+    private volatile XComponent mBridgeComponent;
+    private volatile XMultiComponentFactory mServiceManager;
+    private volatile XComponentContext mComponentContext;
+    private volatile XBridge mBridge;
+    private volatile boolean mConnected = false;
+
+    /**
+     * The local context is only needed to create the bridges: share it between the connections.
+     */
+    private static XComponentContext sLocalContext;
 
     protected AbstractOpenOfficeConnection(String connectionString) {
         mConnectionString = connectionString;
     }
 
+    private static synchronized XComponentContext getLocalContext() throws Exception {
+        if (sLocalContext == null) {
+            sLocalContext = Bootstrap.createInitialComponentContext(null);
+        }
+        return sLocalContext;
+    }
+
+    public String getConnectionString() {
+        return mConnectionString;
+    }
+
     @Override
     public synchronized void connect() throws ConnectException {
+        disposeBridge();
         try {
-            XComponentContext localContext = Bootstrap.createInitialComponentContext(null);
+            XComponentContext localContext = getLocalContext();
             XMultiComponentFactory localServiceManager = localContext.getServiceManager();
             XConnector connector = UnoRuntime.queryInterface(XConnector.class,
                 localServiceManager.createInstanceWithContext("com.sun.star.connection.Connector", localContext));
@@ -79,8 +100,30 @@ public abstract class AbstractOpenOfficeConnection implements OpenOfficeConnecti
 
     @Override
     public synchronized void disconnect() {
-        mExpectingDisconnection = true;
-        mBridgeComponent.dispose();
+        if (mBridgeComponent != null) {
+            mBridgeComponent.dispose();
+        }
+    }
+
+    /**
+     * Disposes the bridge of a previous connection, if any, before reconnecting. The listener is removed first:
+     * the disposing event of the stale bridge must not mark the new connection as disconnected.
+     */
+    private void disposeBridge() {
+        XComponent bridgeComponent = mBridgeComponent;
+        mConnected = false;
+        mBridgeComponent = null;
+        mBridge = null;
+        mServiceManager = null;
+        mComponentContext = null;
+        if (bridgeComponent != null) {
+            try {
+                bridgeComponent.removeEventListener(this);
+                bridgeComponent.dispose();
+            } catch (com.sun.star.uno.RuntimeException exception) {
+                // The bridge is already dead: nothing to release
+            }
+        }
     }
 
     @Override
@@ -88,13 +131,34 @@ public abstract class AbstractOpenOfficeConnection implements OpenOfficeConnecti
         return mConnected;
     }
 
+    /**
+     * Checks that the bridge is still usable with a remote call.
+     *
+     * @return <code>true</code> if the office answered
+     */
+    public boolean isAlive() {
+        XComponentContext componentContext = mComponentContext;
+        boolean alive = mConnected && componentContext != null;
+        if (alive) {
+            try {
+                alive = componentContext.getServiceManager() != null;
+            } catch (com.sun.star.uno.RuntimeException exception) {
+                alive = false;
+                mConnected = false;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Called by the bridge when it is disposed. An unexpected disconnection only marks the connection as
+     * disconnected: throwing here would only reach the bridge thread. The next service request reconnects.
+     */
     @Override
     public void disposing(EventObject event) {
-        mConnected = false;
-        if (!mExpectingDisconnection) {
-            throw new OpenOfficeException("disconnected unexpectedly");
+        if (event == null || event.Source == null || UnoRuntime.areSame(event.Source, mBridgeComponent)) {
+            mConnected = false;
         }
-        mExpectingDisconnection = false;
     }
 
     // for unit tests only
@@ -103,7 +167,7 @@ public abstract class AbstractOpenOfficeConnection implements OpenOfficeConnecti
         mBridgeComponent.dispose();
     }
 
-    private Object getService(String className) {
+    private synchronized Object getService(String className) {
         try {
             if (!mConnected) {
                 connect();
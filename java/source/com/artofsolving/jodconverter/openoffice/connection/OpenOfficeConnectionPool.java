@@ -0,0 +1,183 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright (C) 2004-2007 - Mirko Nasato <mirko@artofsolving.com>
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+// http://www.gnu.org/copyleft/lesser.html
+//
+package com.artofsolving.jodconverter.openoffice.connection;
+
+import java.net.ConnectException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of connections to the same office. Each leased connection has its own bridge, so that parallel
+ * callers do not serialize on a single bridge. Released connections are kept open and are checked before
+ * being leased again; dead ones are reconnected with an exponential backoff.
+ */
+public class OpenOfficeConnectionPool {
+
+    private static final long INITIAL_BACKOFF = 100;
+    private static final long MAX_BACKOFF = 5000;
+    private static final int DEFAULT_MAX_ATTEMPTS = 6;
+
+    /**
+     * Creates the not yet connected connections of the pool.
+     */
+    public interface ConnectionFactory {
+        AbstractOpenOfficeConnection createConnection();
+    }
+
+    private final ConnectionFactory mFactory;
+    private final Semaphore mPermits;
+    private final BlockingQueue<AbstractOpenOfficeConnection> mIdle;
+    private final Set<AbstractOpenOfficeConnection> mLeased = ConcurrentHashMap.newKeySet();
+    private int mMaxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile boolean mClosed = false;
+
+    public OpenOfficeConnectionPool(ConnectionFactory factory, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        mFactory = factory;
+        mPermits = new Semaphore(maxSize, true);
+        mIdle = new LinkedBlockingQueue<AbstractOpenOfficeConnection>(maxSize);
+    }
+
+    public static OpenOfficeConnectionPool forSocket(final String host, final int port, int maxSize) {
+        return new OpenOfficeConnectionPool(new ConnectionFactory() {
+            @Override
+            public AbstractOpenOfficeConnection createConnection() {
+                return new SocketOpenOfficeConnection(host, port);
+            }
+        }, maxSize);
+    }
+
+    public static OpenOfficeConnectionPool forPipe(final String pipeName, int maxSize) {
+        return new OpenOfficeConnectionPool(new ConnectionFactory() {
+            @Override
+            public AbstractOpenOfficeConnection createConnection() {
+                return new PipeOpenOfficeConnection(pipeName);
+            }
+        }, maxSize);
+    }
+
+    /**
+     * @param maxAttempts
+     *            number of connection attempts before {@link #lease()} gives up
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        mMaxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Gets a connected connection, waiting for one to be released if the pool is exhausted.
+     *
+     * @return the leased connection, to give back with {@link #release(OpenOfficeConnection)}
+     * @throws ConnectException
+     *             if the office could not be reached after all the attempts
+     * @throws InterruptedException
+     *             if interrupted while waiting for a connection or between two attempts
+     */
+    public OpenOfficeConnection lease() throws ConnectException, InterruptedException {
+        if (mClosed) {
+            throw new IllegalStateException("pool closed");
+        }
+        mPermits.acquire();
+        boolean leased = false;
+        try {
+            AbstractOpenOfficeConnection connection = mIdle.poll();
+            if (connection == null) {
+                connection = mFactory.createConnection();
+            }
+            if (!connection.isAlive()) {
+                connectWithBackoff(connection);
+            }
+            mLeased.add(connection);
+            leased = true;
+            return connection;
+        } finally {
+            if (!leased) {
+                mPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Gives a leased connection back to the pool. A connection which is no longer alive is dropped and will
+     * be replaced on the next lease.
+     *
+     * @param connection
+     *            the connection returned by {@link #lease()}
+     * @throws IllegalArgumentException
+     *             if the connection isn't leased from this pool, for example because it has already been released
+     */
+    public void release(OpenOfficeConnection connection) {
+        if (!mLeased.remove(connection)) {
+            throw new IllegalArgumentException("connection not leased from this pool: " + connection);
+        }
+        AbstractOpenOfficeConnection pooled = (AbstractOpenOfficeConnection) connection;
+        try {
+            if (mClosed || !pooled.isAlive() || !mIdle.offer(pooled)) {
+                disconnectQuietly(pooled);
+            }
+        } finally {
+            mPermits.release();
+        }
+    }
+
+    /**
+     * Disconnects the idle connections. Connections still leased are disconnected when released.
+     */
+    public void close() {
+        mClosed = true;
+        AbstractOpenOfficeConnection connection = mIdle.poll();
+        while (connection != null) {
+            disconnectQuietly(connection);
+            connection = mIdle.poll();
+        }
+    }
+
+    private void connectWithBackoff(AbstractOpenOfficeConnection connection)
+        throws ConnectException, InterruptedException {
+        long backoff = INITIAL_BACKOFF;
+        int attempt = 1;
+        boolean connected = false;
+        while (!connected) {
+            try {
+                connection.connect();
+                connected = true;
+            } catch (ConnectException | OpenOfficeException exception) {
+                if (attempt >= mMaxAttempts) {
+                    throw exception;
+                }
+                TimeUnit.MILLISECONDS.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+                attempt++;
+            }
+        }
+    }
+
+    private static void disconnectQuietly(AbstractOpenOfficeConnection connection) {
+        try {
+            if (connection.isConnected()) {
+                connection.disconnect();
+            }
+        } catch (RuntimeException exception) {
+            // the bridge is already gone
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.java;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
+import org.eclipse.jdt.launching.IVMConnector;
+import org.eclipse.jdt.launching.JavaRuntime;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.office.LiveOffice;
+
+/**
+ * Attaches a remote debug session to the JVM of a running office.
+ *
+ * <p>
+ * The office only starts its JVM when a Java component is first used: the job retries until the JVM accepts the
+ * debugger, or until the office is closed. The JVM is started suspended and the debug target resumes it once the
+ * breakpoints are installed.
+ * </p>
+ */
+public class DebuggerAttachJob extends Job {
+
+    private static final long RETRY_DELAY = 1000;
+
+    private static final String ATTACH_TIMEOUT = "5000"; //$NON-NLS-1$
+
+    private ILaunch mLaunch;
+
+    private LiveOffice mOffice;
+
+    /**
+     * Constructor.
+     *
+     * @param launch
+     *            the launch to add the debug target to
+     * @param office
+     *            the office started for debugging
+     */
+    public DebuggerAttachJob(ILaunch launch, LiveOffice office) {
+        super(Messages.getString("DebuggerAttachJob.Name")); //$NON-NLS-1$
+        mLaunch = launch;
+        mOffice = office;
+        setSystem(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        IVMConnector connector = JavaRuntime.getVMConnector(
+            IJavaLaunchConfigurationConstants.ID_SOCKET_ATTACH_VM_CONNECTOR);
+        Map<String, String> argMap = new HashMap<>();
+        argMap.put("hostname", "localhost"); //$NON-NLS-1$ //$NON-NLS-2$
+        argMap.put("port", mOffice.getDebugPort()); //$NON-NLS-1$
+        argMap.put("timeout", ATTACH_TIMEOUT); //$NON-NLS-1$
+
+        IStatus status = Status.OK_STATUS;
+        boolean attached = false;
+        boolean interrupted = false;
+        while (!attached && !interrupted && !monitor.isCanceled() && mOffice.isRunning()) {
+            try {
+                connector.connect(argMap, monitor, mLaunch);
+                attached = true;
+                PluginLogger.debug("Debugger attached to port " + mOffice.getDebugPort()); //$NON-NLS-1$
+            } catch (CoreException e) {
+                // The office JVM isn't started yet
+                interrupted = !sleep();
+            }
+        }
+        if (!attached) {
+            status = Status.CANCEL_STATUS;
+        }
+        return status;
+    }
+
+    /**
+     * Waits before the next attach attempt.
+     *
+     * @return <code>false</code> if interrupted
+     */
+    private boolean sleep() {
+        boolean slept = true;
+        try {
+            Thread.sleep(RETRY_DELAY);
+        } catch (InterruptedException e) {
+            slept = false;
+        }
+        return slept;
+    }
+}
@@ -39,7 +39,10 @@ package org.libreoffice.ide.eclipse.java;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
@@ -65,6 +68,20 @@ import org.xml.sax.InputSource;
  */
 public class JavaClassPathProvider {
 
+    private static final String JARDESC_EXPR = "//jardesc/jar";
+
+    private static final String CLASSPATH_OUTPUT_EXPR = "//classpath/classpathentry[@kind='output']";
+
+    /**
+     * The paths read from the descriptor files, mapped by the descriptor file path.
+     */
+    private static Map<IPath, ParsedDescriptor> sDescriptors = new ConcurrentHashMap<IPath, ParsedDescriptor>();
+
+    /**
+     * The compiled XPath expressions, only used by {@link #parseDescriptor(IFile, String)}.
+     */
+    private static Map<String, XPathExpression> sExpressions = new HashMap<String, XPathExpression>();
+
     /**
      * Get the libraries in the classpath that are located in the workspace.
      *
@@ -154,29 +171,12 @@ public class JavaClassPathProvider {
     private static final void setLibsFromProjectJarDesc(IWorkspaceRoot root,
                                                         List<IResource> libs,
                                                         IFile file) {
-        try {
-            FileInputStream byteStream = new FileInputStream(file.getLocation().toFile());
-            InputSource source = new InputSource(byteStream);
-
-            // XPath expression evaluation
-            XPathFactory factory = XPathFactory.newInstance();
-            javax.xml.xpath.XPath xpath = factory.newXPath();
-            final String xPathExpr = "//jardesc/jar";
-            XPathExpression exp = xpath.compile(xPathExpr);
-            Element node = (Element) exp.evaluate(source, XPathConstants.NODE);
-            if (node != null) {
-                String value = node.getAttribute("path");
-                if (value != null && !value.isBlank()) {
-                    IResource res = root.findMember(value);
-                    if (res != null && res.exists() && res.getType() == IResource.FILE) {
-                        libs.add(res);
-                    }
-                }
+        String value = getDescriptorPath(file, JARDESC_EXPR);
+        if (value != null && !value.isBlank()) {
+            IResource res = root.findMember(value);
+            if (res != null && res.exists() && res.getType() == IResource.FILE) {
+                libs.add(res);
             }
-            byteStream.close();
-        } catch (IOException | XPathExpressionException e) {
-            String msg = "Collecting Jars can't parse file: %s!!!";
-            PluginLogger.debug(String.format(msg, file.getLocation().toOSString()));
         }
     }
 
@@ -200,31 +200,83 @@ public class JavaClassPathProvider {
                                                            IPath path,
                                                            IFile file) {
         IResource res = null;
-        try {
-            FileInputStream byteStream = new FileInputStream(file.getLocation().toFile());
-            InputSource source = new InputSource(byteStream);
-
-            // XPath expression evaluation
-            XPathFactory factory = XPathFactory.newInstance();
-            javax.xml.xpath.XPath xpath = factory.newXPath();
-            final String xPathExpr = "//classpath/classpathentry[@kind='output']";
-            XPathExpression exp = xpath.compile(xPathExpr);
-            Element node = (Element) exp.evaluate(source, XPathConstants.NODE);
+        String value = getDescriptorPath(file, CLASSPATH_OUTPUT_EXPR);
+        if (value != null && !value.isBlank()) {
+            IResource folder = root.getFolder(path.append(value));
+            if (folder != null && folder.exists() && folder.getType() == IResource.FOLDER) {
+                res = folder;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the <code>path</code> attribute of the element selected in a descriptor file, parsing the file only if it
+     * changed since the last call.
+     *
+     * @param file the <code>Build.jardesc</code> or <code>.classpath</code> file
+     * @param expression the XPath expression selecting the element
+     *
+     * @return the value of the <code>path</code> attribute or <code>null</code> if there is none
+     */
+    private static final String getDescriptorPath(IFile file, String expression) {
+        IPath key = file.getFullPath();
+        long stamp = file.getModificationStamp();
+        ParsedDescriptor parsed = sDescriptors.get(key);
+        if (parsed == null || parsed.mStamp != stamp) {
+            parsed = new ParsedDescriptor(stamp, parseDescriptor(file, expression));
+            sDescriptors.put(key, parsed);
+        }
+        return parsed.mPath;
+    }
+
+    /**
+     * Parse a descriptor file to get the <code>path</code> attribute of the element selected by an expression. The
+     * compiled expressions aren't thread safe: the method is synchronized.
+     *
+     * @param file the <code>Build.jardesc</code> or <code>.classpath</code> file
+     * @param expression the XPath expression selecting the element
+     *
+     * @return the value of the <code>path</code> attribute or <code>null</code> if there is none
+     */
+    private static final synchronized String parseDescriptor(IFile file, String expression) {
+        String value = null;
+        try (FileInputStream byteStream = new FileInputStream(file.getLocation().toFile())) {
+            XPathExpression exp = sExpressions.get(expression);
+            if (exp == null) {
+                exp = XPathFactory.newInstance().newXPath().compile(expression);
+                sExpressions.put(expression, exp);
+            }
+            Element node = (Element) exp.evaluate(new InputSource(byteStream), XPathConstants.NODE);
             if (node != null) {
-                String value = node.getAttribute("path");
-                if (value != null && !value.isBlank()) {
-                    IResource folder = root.getFolder(path.append(value));
-                    if (folder != null && folder.exists() && folder.getType() == IResource.FOLDER) {
-                        res = folder;
-                    }
-                }
+                value = node.getAttribute("path");
             }
-            byteStream.close();
         } catch (IOException | XPathExpressionException e) {
             String msg = "Collecting Jars can't parse file: %s!!!";
             PluginLogger.debug(String.format(msg, file.getLocation().toOSString()));
         }
-        return res;
+        return value;
+    }
+
+    /**
+     * The path read from a descriptor file.
+     */
+    private static class ParsedDescriptor {
+
+        private final long mStamp;
+
+        private final String mPath;
+
+        /**
+         * Constructor.
+         *
+         * @param stamp the modification stamp of the parsed file
+         * @param path the path read, may be <code>null</code>
+         */
+        ParsedDescriptor(long stamp, String path) {
+            mStamp = stamp;
+            mPath = path;
+        }
     }
 
 }
@@ -5,18 +5,38 @@ import org.libreoffice.ide.eclipse.core.model.utils.SystemHelper;
 
 /**
  * Adds extra env variables to start LibreOffice with Java setup to run in debug mode.
+ *
+ * <p>
+ * The office JVM listens for debuggers on the port: several debug sessions can be attached to the same office one
+ * after the other. The JVM waits for the first debugger before running any code, so that the breakpoints in the
+ * component initialization are hit.
+ * </p>
  */
 public class JavaDebugExtraOptionsProvider implements IExtraOptionsProvider {
 
     private String mPort;
 
+    private String mArguments;
+
     /**
      *
      * @param pPort
      *            the port to listen to.
      */
     public JavaDebugExtraOptionsProvider(String pPort) {
+        this(pPort, null);
+    }
+
+    /**
+     *
+     * @param pPort
+     *            the port to listen to.
+     * @param pArguments
+     *            additional office arguments, or <code>null</code>
+     */
+    public JavaDebugExtraOptionsProvider(String pPort, String pArguments) {
         this.mPort = pPort;
+        this.mArguments = pArguments;
     }
 
     /**
@@ -32,10 +52,21 @@ public class JavaDebugExtraOptionsProvider implements IExtraOptionsProvider {
         }
 
         env = SystemHelper.addEnv(env, "JAVA_TOOL_OPTIONS", //$NON-NLS-1$
-            extraJavaOptEnv + "\"-Xdebug\" " + //$NON-NLS-1$
-                "\"-Xrunjdwp:transport=dt_socket,address=localhost:" + mPort + "\"", //$NON-NLS-1$//$NON-NLS-2$
+            extraJavaOptEnv + "\"-agentlib:jdwp=transport=dt_socket,server=y,suspend=y," + //$NON-NLS-1$
+                "address=localhost:" + mPort + "\"", //$NON-NLS-1$//$NON-NLS-2$
             null);
         return env;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String addArguments(String command) {
+        String result = command;
+        if (mArguments != null) {
+            result = command + " " + mArguments; //$NON-NLS-1$
+        }
+        return result;
+    }
 }
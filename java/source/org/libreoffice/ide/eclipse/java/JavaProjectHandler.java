@@ -40,6 +40,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.xml.xpath.XPathConstants;
@@ -83,7 +88,7 @@ public class JavaProjectHandler implements IProjectHandler {
     private static final String P_REGISTRATION_CLASSNAME = "regclassname"; //$NON-NLS-1$
     private static final String P_JAVA_VERSION = "javaversion"; //$NON-NLS-1$
 
-    private static final String[] KEPT_JARS = {
+    private static final Set<String> KEPT_JARS = new HashSet<String>(Arrays.asList(
         "libreoffice.jar", //$NON-NLS-1$
         "unoil.jar", //$NON-NLS-1$
         "ridl.jar", //$NON-NLS-1$
@@ -93,7 +98,7 @@ public class JavaProjectHandler implements IProjectHandler {
         "officebean.jar", //$NON-NLS-1$
         "java_websocket.jar", //$NON-NLS-1$
         "unoagent.jar" //$NON-NLS-1$
-    };
+    ));
 
     /**
      * {@inheritDoc}
@@ -151,13 +156,16 @@ public class JavaProjectHandler implements IProjectHandler {
 
         // Set some properties on the project
 
+        Map<String, String> properties = new HashMap<String, String>();
+
         // The registration class name is always computed in the same way
         String regclass = RegistrationHelper.getRegistrationClassName(unoprj);
-        unoprj.setProperty(P_REGISTRATION_CLASSNAME, regclass);
+        properties.put(P_REGISTRATION_CLASSNAME, regclass);
 
         // Java version
         String javaversion = (String) data.getProperty(JavaWizardPage.JAVA_VERSION);
-        unoprj.setProperty(P_JAVA_VERSION, javaversion);
+        properties.put(P_JAVA_VERSION, javaversion);
+        unoprj.setProperties(properties);
 
         IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(unoprj.getName());
 
@@ -367,17 +375,6 @@ public class JavaProjectHandler implements IProjectHandler {
      * @return <code>true</code> if jarName is one of those defined in KEPT_JARS, <code>false</code> otherwise.
      */
     private static boolean isKeptJar(String jarName) {
-
-        int i = 0;
-        boolean isKept = false;
-
-        while (i < KEPT_JARS.length && !isKept) {
-            if (jarName.equals(KEPT_JARS[i])) {
-                isKept = true;
-            } else {
-                i++;
-            }
-        }
-        return isKept;
+        return KEPT_JARS.contains(jarName);
     }
 }
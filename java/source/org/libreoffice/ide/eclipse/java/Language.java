@@ -36,8 +36,8 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.java;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.net.ServerSocket;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -45,16 +45,16 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.model.IProcess;
 import org.eclipse.debug.core.sourcelookup.ISourcePathComputer;
 import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
-import org.eclipse.jdt.launching.IVMConnector;
-import org.eclipse.jdt.launching.JavaRuntime;
 import org.libreoffice.ide.eclipse.core.PluginLogger;
 import org.libreoffice.ide.eclipse.core.launch.office.IOfficeLaunchConstants;
 import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
 import org.libreoffice.ide.eclipse.core.model.language.AbstractLanguage;
 import org.libreoffice.ide.eclipse.core.model.language.ILanguageBuilder;
 import org.libreoffice.ide.eclipse.core.model.language.IProjectHandler;
+import org.libreoffice.ide.eclipse.core.office.LiveOffice;
 
 /**
  * Implementation for the Java language.
@@ -81,30 +81,53 @@ public class Language extends AbstractLanguage {
 
     /**
      * {@inheritDoc}
+     *
+     * <p>
+     * The office is started with its JVM listening for debuggers and accepting UNO connections: it is kept running
+     * between the debug sessions. The next debug launches deploy the package through its UNO connection and attach a
+     * new debug session to it instead of starting an other office.
+     * </p>
      */
     @Override
     public void connectDebuggerToOffice(IUnoidlProject prj, ILaunch launch, IPath userInstallation,
         IProgressMonitor monitor) {
 
         try {
-            // org.eclipse.jdt.launching.socketListenConnector
-            // SocketListenConnector
-            String connectorId = "org.eclipse.jdt.launching.socketListenConnector";
-            IVMConnector connector = JavaRuntime.getVMConnector(connectorId);
-            Map<String, String> argMap = new HashMap<>();
-            argMap.put("timeout", "80000");
-            //FIXME implement some kind of port pickup/retry mechanism in case the default port is already used.
-            argMap.put("port", DEFAULT_JAVA_DEBUG_PORT);
+            LiveOffice office = LiveOffice.getRunning(prj.getOOo(), userInstallation);
+            if (office != null && office.getDebugPort() != null) {
+                PluginLogger.info("Attaching to the running LibreOffice on port " + //$NON-NLS-1$
+                    office.getDebugPort());
+            } else {
+                office = LiveOffice.create(prj.getOOo(), userInstallation);
+                office.setDebugPort(findFreePort());
+                prj.getOOo().runOffice(prj, launch, userInstallation,
+                    new JavaDebugExtraOptionsProvider(office.getDebugPort(), office.getAcceptArgument()), monitor);
 
-            connector.connect(argMap, monitor, launch);
+                IProcess[] processes = launch.getProcesses();
+                if (processes.length > 0) {
+                    office.setProcess(processes[processes.length - 1]);
+                }
+            }
 
-            prj.getOOo().runOffice(prj, launch, userInstallation,
-                new JavaDebugExtraOptionsProvider(DEFAULT_JAVA_DEBUG_PORT), monitor);
+            new DebuggerAttachJob(launch, office).schedule();
         } catch (Exception e) {
             PluginLogger.error("Could not start remote debugger.", e);
         }
     }
 
+    /**
+     * @return a port which isn't used yet, or the default debug port if none could be found
+     */
+    private static String findFreePort() {
+        String port = DEFAULT_JAVA_DEBUG_PORT;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = Integer.toString(socket.getLocalPort());
+        } catch (IOException e) {
+            PluginLogger.debug("No free debug port, using the default one: " + e.getMessage()); //$NON-NLS-1$
+        }
+        return port;
+    }
+
     @Override
     public void configureSourceLocator(ILaunchConfigurationWorkingCopy configuration) throws CoreException {
         String projectName = configuration.getAttribute(IOfficeLaunchConstants.PROJECT_NAME, "");
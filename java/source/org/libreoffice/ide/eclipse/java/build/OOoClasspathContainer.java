@@ -36,28 +36,53 @@
  ************************************************************************/
 package org.libreoffice.ide.eclipse.java.build;
 
+import java.io.File;
 import java.text.MessageFormat;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
 import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.JavaCore;
+import org.libreoffice.ide.eclipse.core.model.OOoContainer;
+import org.libreoffice.ide.eclipse.core.model.config.IConfigListener;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+import org.libreoffice.ide.eclipse.core.model.config.ISdk;
 import org.libreoffice.ide.eclipse.java.JavaProjectHandler;
 
 /**
  * Container for the OOo classes jars.
+ *
+ * <p>
+ * The jars are looked for once for each LibreOffice installation, and shared by all the containers whatever the SDK
+ * documentation attached to them. They are looked for again if the classes folders are modified or if the
+ * LibreOffice instance is updated or removed.
+ * </p>
  */
 public class OOoClasspathContainer implements IClasspathContainer {
 
     public static final String ID = "org.libreoffice.ide.eclipse.java.OOO_CONTAINER"; //$NON-NLS-1$
 
+    /**
+     * The Java API reference folder relative to the SDK home.
+     */
+    private static final String JAVADOC_DIR = "docs/java/ref"; //$NON-NLS-1$
+
+    private static Map<String, CachedJars> sJars = new ConcurrentHashMap<String, CachedJars>();
+
+    private static IConfigListener sListener;
+
     private IOOo mOOo;
 
     private IPath mPath;
 
+    private String mJavadocLocation;
+
     /**
      * Constructor.
      *
@@ -65,8 +90,21 @@ public class OOoClasspathContainer implements IClasspathContainer {
      * @param path the path used for the container.
      */
     public OOoClasspathContainer(IOOo ooo, IPath path) {
+        this(ooo, path, null);
+    }
+
+    /**
+     * Constructor attaching the Java API reference of a SDK to the jars.
+     *
+     * @param ooo the OOo represented by the container.
+     * @param path the path used for the container.
+     * @param sdk the SDK providing the Java API reference, may be <code>null</code>.
+     */
+    public OOoClasspathContainer(IOOo ooo, IPath path, ISdk sdk) {
         mOOo = ooo;
         mPath = path;
+        mJavadocLocation = getJavadocLocation(sdk);
+        registerListener();
     }
 
     /**
@@ -74,13 +112,14 @@ public class OOoClasspathContainer implements IClasspathContainer {
      */
     @Override
     public IClasspathEntry[] getClasspathEntries() {
-        Vector<Path> jars = JavaProjectHandler.findJarsFromPath(mOOo);
-        Vector<IClasspathEntry> entries = new Vector<IClasspathEntry>();
-
-        for (Path path : jars) {
-            entries.add(JavaCore.newLibraryEntry(path, null, null));
+        CachedJars cached = sJars.get(mOOo.getHome());
+        long stamp = getClassesStamp(mOOo);
+        if (cached == null || cached.mStamp != stamp) {
+            Vector<Path> jars = JavaProjectHandler.findJarsFromPath(mOOo);
+            cached = new CachedJars(jars.toArray(new Path[jars.size()]), stamp);
+            sJars.put(mOOo.getHome(), cached);
         }
-        return entries.toArray(new IClasspathEntry[entries.size()]);
+        return computeEntries(cached.mJars);
     }
 
     /**
@@ -109,4 +148,108 @@ public class OOoClasspathContainer implements IClasspathContainer {
         return mPath;
     }
 
+    /**
+     * @param sdk the SDK of the project, may be <code>null</code>
+     * @return <code>true</code> if the container has the Java API reference of this SDK attached
+     */
+    boolean isDocumentedBy(ISdk sdk) {
+        String location = getJavadocLocation(sdk);
+        return mJavadocLocation == null && location == null
+            || mJavadocLocation != null && mJavadocLocation.equals(location);
+    }
+
+    /**
+     * @param jars the LibreOffice jars
+     * @return the library entries of the LibreOffice jars
+     */
+    private IClasspathEntry[] computeEntries(Path[] jars) {
+        IClasspathAttribute[] attributes = new IClasspathAttribute[0];
+        if (mJavadocLocation != null) {
+            attributes = new IClasspathAttribute[] {
+                JavaCore.newClasspathAttribute(IClasspathAttribute.JAVADOC_LOCATION_ATTRIBUTE_NAME, mJavadocLocation)
+            };
+        }
+
+        IClasspathEntry[] entries = new IClasspathEntry[jars.length];
+        for (int i = 0; i < jars.length; i++) {
+            entries[i] = JavaCore.newLibraryEntry(jars[i], null, null, new IAccessRule[0], attributes, false);
+        }
+        return entries;
+    }
+
+    /**
+     * @param sdk the SDK, may be <code>null</code>
+     * @return the URL of the SDK Java API reference or <code>null</code> if there is none
+     */
+    private static String getJavadocLocation(ISdk sdk) {
+        String location = null;
+        if (sdk != null && sdk.getHome() != null) {
+            File javadocDir = new File(sdk.getHome(), JAVADOC_DIR);
+            if (javadocDir.isDirectory()) {
+                location = javadocDir.toURI().toString();
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Computes a stamp changing when jars are added to or removed from the classes folders.
+     *
+     * @param ooo the LibreOffice instance
+     * @return the modification stamp of the classes folders
+     */
+    private static long getClassesStamp(IOOo ooo) {
+        long stamp = 0;
+        for (String path : ooo.getClassesPath()) {
+            stamp = stamp * 31 + new File(path).lastModified();
+        }
+        return stamp;
+    }
+
+    /**
+     * Starts listening to the LibreOffice instances changes to forget the outdated entries.
+     */
+    private static synchronized void registerListener() {
+        if (sListener == null) {
+            sListener = new IConfigListener() {
+
+                @Override
+                public void ConfigAdded(Object element) {
+                    // A new instance has no cached entries
+                }
+
+                @Override
+                public void ConfigRemoved(Object element) {
+                    sJars.clear();
+                }
+
+                @Override
+                public void ConfigUpdated(Object element) {
+                    sJars.clear();
+                }
+            };
+            OOoContainer.addListener(sListener);
+        }
+    }
+
+    /**
+     * Jars found for a LibreOffice instance.
+     */
+    private static class CachedJars {
+
+        private final Path[] mJars;
+
+        private final long mStamp;
+
+        /**
+         * Constructor.
+         *
+         * @param jars the jars found
+         * @param stamp the stamp of the classes folders when the jars have been looked for
+         */
+        CachedJars(Path[] jars, long stamp) {
+            mJars = jars;
+            mStamp = stamp;
+        }
+    }
 }
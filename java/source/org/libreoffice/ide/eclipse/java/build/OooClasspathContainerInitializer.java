@@ -38,21 +38,38 @@ package org.libreoffice.ide.eclipse.java.build;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ClasspathContainerInitializer;
 import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
+import org.libreoffice.ide.eclipse.core.PluginLogger;
+import org.libreoffice.ide.eclipse.core.model.IProjectsListener;
+import org.libreoffice.ide.eclipse.core.model.IUnoidlProject;
 import org.libreoffice.ide.eclipse.core.model.OOoContainer;
+import org.libreoffice.ide.eclipse.core.model.ProjectsManager;
 import org.libreoffice.ide.eclipse.core.model.config.IOOo;
+import org.libreoffice.ide.eclipse.core.model.config.ISdk;
 
 /**
  * Initializes a classpath container for OOo instances.
+ *
+ * <p>
+ * The UNO projects may be configured after their container has been initialized: the container is then updated to
+ * attach the Java API reference of the project SDK.
+ * </p>
  */
 public class OooClasspathContainerInitializer extends
     ClasspathContainerInitializer {
 
     static final int HINT_SEGMENT = 1;
 
+    private static IProjectsListener sProjectsListener;
+
     /**
      * {@inheritDoc}
      */
@@ -60,11 +77,32 @@ public class OooClasspathContainerInitializer extends
     public void initialize(IPath containerPath, IJavaProject project)
         throws CoreException {
 
+        registerProjectsListener();
+
+        // Attach the Java API reference of the project SDK if it is already known
+        ISdk sdk = null;
+        IUnoidlProject unoProject = ProjectsManager.getProject(project.getElementName());
+        if (unoProject != null) {
+            sdk = unoProject.getSdk();
+        }
+        setContainer(containerPath, project, sdk);
+    }
+
+    /**
+     * Sets the container of a project.
+     *
+     * @param containerPath the path of the container
+     * @param project the project using the container
+     * @param sdk the SDK providing the Java API reference, may be <code>null</code>
+     *
+     * @throws CoreException if the container can't be set
+     */
+    private static void setContainer(IPath containerPath, IJavaProject project, ISdk sdk) throws CoreException {
         String hint = containerPath.segment(HINT_SEGMENT);
         IOOo ooo = OOoContainer.getOOo(hint);
 
         if (ooo != null) {
-            OOoClasspathContainer container = new OOoClasspathContainer(ooo, containerPath);
+            OOoClasspathContainer container = new OOoClasspathContainer(ooo, containerPath, sdk);
 
             IJavaProject[] projects = new IJavaProject[] { project };
             IClasspathContainer[] containers = new IClasspathContainer[] { container };
@@ -73,6 +111,65 @@ public class OooClasspathContainerInitializer extends
         }
     }
 
+    /**
+     * Updates the containers of a configured project which don't have the Java API reference of its SDK yet.
+     *
+     * @param unoProject the configured project
+     *
+     * @throws CoreException if the containers can't be updated
+     */
+    private static void updateContainers(IUnoidlProject unoProject) throws CoreException {
+        IJavaProject project = JavaCore.create(unoProject.getProject());
+        if (project.exists()) {
+            for (IClasspathEntry entry : project.getRawClasspath()) {
+                IPath path = entry.getPath();
+                if (entry.getEntryKind() == IClasspathEntry.CPE_CONTAINER
+                    && OOoClasspathContainer.ID.equals(path.segment(0))) {
+                    IClasspathContainer container = JavaCore.getClasspathContainer(path, project);
+                    if (container instanceof OOoClasspathContainer
+                        && !((OOoClasspathContainer) container).isDocumentedBy(unoProject.getSdk())) {
+                        setContainer(path, project, unoProject.getSdk());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts listening to the configured projects to update their containers.
+     */
+    private static synchronized void registerProjectsListener() {
+        if (sProjectsListener == null) {
+            sProjectsListener = new IProjectsListener() {
+
+                @Override
+                public void projectAdded(final IUnoidlProject project) {
+                    // The project may be configured while holding a scheduling rule: update the classpath later
+                    Job job = new Job(Messages.getString("OooClasspathContainerInitializer.UpdateJob")) { //$NON-NLS-1$
+
+                        @Override
+                        protected IStatus run(IProgressMonitor monitor) {
+                            try {
+                                updateContainers(project);
+                            } catch (CoreException e) {
+                                PluginLogger.warning(e.getMessage(), e);
+                            }
+                            return Status.OK_STATUS;
+                        }
+                    };
+                    job.setSystem(true);
+                    job.schedule();
+                }
+
+                @Override
+                public void projectRemoved(IUnoidlProject project) {
+                    // The jars are still valid: keep the container as is
+                }
+            };
+            ProjectsManager.addListener(sProjectsListener);
+        }
+    }
+
     /**
      * Always allow container modification: it could be necessary to add additional OOo
      * jars or set the sources path.
@@ -0,0 +1,280 @@
+/*************************************************************************
+ * The Contents of this file are made available subject to the terms of
+ * the GNU Lesser General Public License Version 2.1
+ *
+ * Sun Microsystems Inc., October, 2000
+ *
+ *
+ * GNU Lesser General Public License Version 2.1
+ * =============================================
+ * Copyright 2000 by Sun Microsystems, Inc.
+ * 901 San Antonio Road, Palo Alto, CA 94303, USA
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 2.1, as published by the Free Software Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+ * MA 02111-1307 USA
+ *
+ * The Initial Developer of the Original Code is: Sun Microsystems, Inc..
+ *
+ * Copyright: 2002 by Sun Microsystems, Inc.
+ *
+ * All Rights Reserved.
+ *
+ * Contributor(s): Cedric Bosdonnat
+ *
+ *
+ ************************************************************************/
+package org.libreoffice.ide.eclipse.java.unittests;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.artofsolving.jodconverter.openoffice.connection.AbstractOpenOfficeConnection;
+import com.artofsolving.jodconverter.openoffice.connection.OpenOfficeConnection;
+import com.artofsolving.jodconverter.openoffice.connection.OpenOfficeConnectionPool;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for the pool of office connections, using fake connections.
+ */
+public class OpenOfficeConnectionPoolTest extends TestCase {
+
+    private static final long WAIT_TIME = 200;
+
+    private List<FakeConnection> mCreated;
+
+    private int mFailures;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void setUp() throws Exception {
+        mCreated = new ArrayList<FakeConnection>();
+        mFailures = 0;
+    }
+
+    /**
+     * Test that a released connection is leased again without reconnecting.
+     *
+     * @throws Exception
+     *             if the pool fails
+     */
+    public void testLeaseRelease() throws Exception {
+        OpenOfficeConnectionPool pool = createPool(1);
+
+        OpenOfficeConnection first = pool.lease();
+        assertTrue(first.isConnected());
+        pool.release(first);
+
+        OpenOfficeConnection second = pool.lease();
+        assertEquals(first, second);
+        assertEquals(1, mCreated.size());
+        assertEquals(1, mCreated.get(0).mAttempts);
+        pool.release(second);
+
+        pool.close();
+        assertFalse(first.isConnected());
+    }
+
+    /**
+     * Test that an idle connection which died is reconnected when leased again.
+     *
+     * @throws Exception
+     *             if the pool fails
+     */
+    public void testReconnect() throws Exception {
+        OpenOfficeConnectionPool pool = createPool(1);
+
+        OpenOfficeConnection first = pool.lease();
+        pool.release(first);
+        mCreated.get(0).mConnected = false;
+
+        OpenOfficeConnection second = pool.lease();
+        assertEquals(first, second);
+        assertTrue(second.isConnected());
+        assertEquals(2, mCreated.get(0).mAttempts);
+        pool.release(second);
+    }
+
+    /**
+     * Test that the refused connections are attempted again after an increasing delay.
+     *
+     * @throws Exception
+     *             if the pool fails
+     */
+    public void testBackoff() throws Exception {
+        OpenOfficeConnectionPool pool = createPool(1);
+        mFailures = 2;
+
+        long start = System.currentTimeMillis();
+        OpenOfficeConnection connection = pool.lease();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(connection.isConnected());
+        assertEquals(3, mCreated.get(0).mAttempts);
+        // 100ms after the first failure, then 200ms after the second one
+        assertTrue("Attempts not delayed: " + elapsed, elapsed >= 300); //$NON-NLS-1$
+        pool.release(connection);
+    }
+
+    /**
+     * Test that the lease fails after the maximum attempts, without consuming the pool capacity.
+     *
+     * @throws Exception
+     *             if the pool fails
+     */
+    public void testGiveUp() throws Exception {
+        OpenOfficeConnectionPool pool = createPool(1);
+        pool.setMaxAttempts(2);
+        mFailures = 2;
+
+        try {
+            pool.lease();
+            fail("The office should not be reached"); //$NON-NLS-1$
+        } catch (ConnectException e) {
+            // Expected
+        }
+        assertEquals(2, mCreated.get(0).mAttempts);
+
+        mFailures = 0;
+        OpenOfficeConnection connection = pool.lease();
+        assertTrue(connection.isConnected());
+        pool.release(connection);
+    }
+
+    /**
+     * Test that a connection can't be released twice nor released to an other pool, and that the pool doesn't grow
+     * past its size.
+     *
+     * @throws Exception
+     *             if the pool fails
+     */
+    public void testInvalidRelease() throws Exception {
+        final OpenOfficeConnectionPool pool = createPool(1);
+
+        OpenOfficeConnection connection = pool.lease();
+        pool.release(connection);
+        try {
+            pool.release(connection);
+            fail("Double release accepted"); //$NON-NLS-1$
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            pool.release(new FakeConnection());
+            fail("Foreign connection accepted"); //$NON-NLS-1$
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // The pool still has a single connection: a second lease waits for the first one
+        connection = pool.lease();
+        final List<OpenOfficeConnection> second = new ArrayList<OpenOfficeConnection>();
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    second.add(pool.lease());
+                } catch (Exception e) {
+                    // The test checks that nothing has been leased
+                }
+            }
+        };
+        thread.start();
+        thread.join(WAIT_TIME);
+        assertTrue(thread.isAlive());
+
+        pool.release(connection);
+        thread.join();
+        assertEquals(1, second.size());
+        assertEquals(connection, second.get(0));
+        pool.release(second.get(0));
+    }
+
+    /**
+     * Creates a pool of fake connections, refusing the first {@link #mFailures} connection attempts.
+     *
+     * @param maxSize
+     *            the maximum number of connections of the pool
+     * @return the pool
+     */
+    private OpenOfficeConnectionPool createPool(int maxSize) {
+        return new OpenOfficeConnectionPool(new OpenOfficeConnectionPool.ConnectionFactory() {
+
+            @Override
+            public AbstractOpenOfficeConnection createConnection() {
+                FakeConnection connection = new FakeConnection();
+                mCreated.add(connection);
+                return connection;
+            }
+        }, maxSize);
+    }
+
+    /**
+     * Connection without any office, refusing the connection while the test requires it.
+     */
+    private class FakeConnection extends AbstractOpenOfficeConnection {
+
+        private volatile boolean mConnected = false;
+
+        private int mAttempts = 0;
+
+        /**
+         * Constructor.
+         */
+        FakeConnection() {
+            super("fake"); //$NON-NLS-1$
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void connect() throws ConnectException {
+            mAttempts++;
+            if (mFailures > 0) {
+                mFailures--;
+                throw new ConnectException("refused"); //$NON-NLS-1$
+            }
+            mConnected = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void disconnect() {
+            mConnected = false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isConnected() {
+            return mConnected;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isAlive() {
+            return mConnected;
+        }
+    }
+}